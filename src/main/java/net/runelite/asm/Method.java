@@ -108,12 +108,12 @@ public class Method
 				assert exception.getEnd().getLabel() != null;
 				assert exception.getHandler().getLabel() != null;
 
-				int idxStart = code.getInstructions().getInstructions().indexOf(exception.getStart());
-				int idxEnd = code.getInstructions().getInstructions().indexOf(exception.getEnd());
+				int idxStart = code.getInstructions().indexOf(exception.getStart());
+				int idxEnd = code.getInstructions().indexOf(exception.getEnd());
 
 				assert idxStart != -1;
 				assert idxEnd != -1;
-				assert code.getInstructions().getInstructions().contains(exception.getHandler());
+				assert code.getInstructions().indexOf(exception.getHandler()) != -1;
 
 				assert idxEnd > idxStart;
 
@@ -24,6 +24,8 @@
  */
 package net.runelite.asm;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import net.runelite.asm.pool.Class;
 
 /**
@@ -31,67 +33,78 @@ import net.runelite.asm.pool.Class;
  */
 public class Type
 {
-
-	public static final Type VOID = new Type("V");
-	public static final Type BOOLEAN = new Type("Z");
-	public static final Type CHAR = new Type("C");
-	public static final Type BYTE = new Type("B");
-	public static final Type SHORT = new Type("S");
-	public static final Type INT = new Type("I");
-	public static final Type FLOAT = new Type("F");
-	public static final Type LONG = new Type("J");
-	public static final Type DOUBLE = new Type("D");
-	public static final Type OBJECT = new Type("Ljava/lang/Object;");
-	public static final Type STRING = new Type("Ljava/lang/String;");
-	public static final Type THROWABLE = new Type("Ljava/lang/Throwable;");
-	public static final Type EXCEPTION = new Type("Ljava/lang/Exception;");
+	// types are interned, so there is only ever one instance of each
+	private static final Map<String, Type> TYPES = new ConcurrentHashMap<>();
+
+	public static final Type VOID = of("V");
+	public static final Type BOOLEAN = of("Z");
+	public static final Type CHAR = of("C");
+	public static final Type BYTE = of("B");
+	public static final Type SHORT = of("S");
+	public static final Type INT = of("I");
+	public static final Type FLOAT = of("F");
+	public static final Type LONG = of("J");
+	public static final Type DOUBLE = of("D");
+	public static final Type OBJECT = of("Ljava/lang/Object;");
+	public static final Type STRING = of("Ljava/lang/String;");
+	public static final Type THROWABLE = of("Ljava/lang/Throwable;");
+	public static final Type EXCEPTION = of("Ljava/lang/Exception;");
 
 	private final String type;
+	private final int dimensions;
+	private final int size;
+	private final boolean primitive;
+	private final boolean stackInt;
 
-	public Type(String type)
+	private Type(String type)
 	{
 		this.type = type;
+		this.dimensions = getDimensions(type);
+
+		char c = type.length() == 1 ? type.charAt(0) : 'L';
+		this.primitive = "ZBSCIVJFD".indexOf(c) != -1;
+		this.stackInt = c == 'Z' || c == 'B' || c == 'S' || c == 'C' || c == 'I';
+		this.size = c == 'J' || c == 'D' ? 2 : c == 'V' ? 0 : 1;
+	}
+
+	public static Type of(String type)
+	{
+		Type t = TYPES.get(type);
+		if (t == null)
+		{
+			t = TYPES.computeIfAbsent(type, Type::new);
+		}
+		return t;
 	}
 
 	public boolean isPrimitive()
 	{
-		return this.equals(BOOLEAN) || this.equals(BYTE) || this.equals(SHORT) || this.equals(CHAR) || this.equals(INT)
-			|| this.equals(VOID) || this.equals(LONG) || this.equals(FLOAT) || this.equals(DOUBLE);
+		return primitive;
 	}
 
 	public boolean isObject()
 	{
-		return this.equals(OBJECT);
+		return this == OBJECT;
 	}
 
 	public boolean isArray()
 	{
-		return getDimensions() > 0;
+		return dimensions > 0;
 	}
 
 	public boolean isStackInt()
 	{
-		return this.equals(BOOLEAN) || this.equals(BYTE) || this.equals(SHORT) || this.equals(CHAR) || this.equals(INT);
+		return stackInt;
 	}
 
 	public int getSize()
 	{
-		if (this.equals(LONG) || this.equals(DOUBLE))
-		{
-			return 2;
-		}
-
-		if (this.equals(VOID))
-		{
-			return 0;
-		}
-
-		return 1;
+		return size;
 	}
 
 	public int getDimensions()
 	{
-		return getDimensions(type);
+		return dimensions;
 	}
 
 	public Type getSubtype()
@@ -100,7 +113,7 @@ public class Type
 		{
 			throw new IllegalStateException(type + " is not an array");
 		}
-		return new Type(type.substring(1));
+		return of(type.substring(1));
 	}
 
 	public String getInternalName()
@@ -123,13 +136,7 @@ public class Type
 	@Override
 	public boolean equals(Object o)
 	{
-		if (!(o instanceof Type))
-		{
-			return false;
-		}
-
-		Type other = (Type) o;
-		return type.equals(other.type);
+		return this == o;
 	}
 
 	@Override
@@ -161,12 +168,12 @@ public class Type
 		if (str.startsWith("["))
 		{
 			// array type
-			return new Type(str);
+			return of(str);
 		}
 		else
 		{
 			// object type
-			return new Type("L" + str + ";");
+			return of("L" + str + ";");
 		}
 	}
 
@@ -187,7 +194,7 @@ public class Type
 		{
 			builder.append('[');
 		}
-		return new Type(builder.append(type).toString());
+		return of(builder.append(type).toString());
 	}
 
 	public static Type getType(Object object)
@@ -216,7 +223,7 @@ public class Type
 		}
 		else if (object instanceof Class)
 		{
-			type = new Type("L" + ((Class) object).getName() + ";");
+			type = of("L" + ((Class) object).getName() + ";");
 		}
 		else
 		{
@@ -26,6 +26,7 @@ package net.runelite.asm.attributes.code;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import net.runelite.asm.attributes.Code;
@@ -33,8 +34,11 @@ import net.runelite.asm.attributes.Code;
 public class Instructions
 {
 	private final Code code;
-	private final List<Instruction> instructions = new ArrayList<>();
+	private final InstructionList instructions = new InstructionList();
 	private final Map<org.objectweb.asm.Label, Label> labelMap = new HashMap<>();
+	// instruction -> index into instructions, rebuilt lazily after the list is modified
+	private final Map<Instruction, Integer> positions = new IdentityHashMap<>();
+	private int positionsModCount = -1;
 
 	public Instructions(Code code)
 	{
@@ -49,14 +53,14 @@ public class Instructions
 	public Label createLabelFor(Instruction target, boolean forceCreate)
 	{
 		assert target.getInstructions() == this;
-		assert instructions.contains(target);
+		assert indexOf(target) != -1;
 
 		if (target instanceof Label)
 		{
 			return (Label) target;
 		}
 
-		int i = instructions.indexOf(target);
+		int i = indexOf(target);
 		if (i > 0)
 		{
 			Instruction before = instructions.get(i - 1);
@@ -118,6 +122,46 @@ public class Instructions
 		return instructions;
 	}
 
+	/**
+	 * index of the instruction in this list, or -1. this is constant time
+	 * as long as the list isn't modified between lookups
+	 */
+	public int indexOf(Instruction i)
+	{
+		if (positionsModCount != instructions.modCount())
+		{
+			positions.clear();
+
+			for (int idx = 0; idx < instructions.size(); ++idx)
+			{
+				positions.put(instructions.get(idx), idx);
+			}
+
+			positionsModCount = instructions.modCount();
+		}
+
+		Integer idx = positions.get(i);
+		return idx != null ? idx : -1;
+	}
+
+	/**
+	 * changes whenever an instruction is added, removed or replaced
+	 */
+	public int getModCount()
+	{
+		return instructions.modCount();
+	}
+
+	/**
+	 * the instruction directly after i
+	 */
+	public Instruction getNext(Instruction i)
+	{
+		int idx = indexOf(i);
+		assert idx != -1;
+		return instructions.get(idx + 1);
+	}
+
 	public void addInstruction(Instruction i)
 	{
 		assert i.getInstructions() == this;
@@ -134,7 +178,11 @@ public class Instructions
 	{
 		assert ins.getInstructions() == this;
 		ins.remove();
-		instructions.remove(ins);
+		int idx = indexOf(ins);
+		if (idx != -1)
+		{
+			instructions.remove(idx);
+		}
 		ins.setInstructions(null);
 	}
 
@@ -176,14 +224,31 @@ public class Instructions
 		assert oldi.getInstructions() == this;
 		assert newi.getInstructions() == this;
 
-		assert instructions.contains(oldi);
-		assert !instructions.contains(newi);
+		assert indexOf(oldi) != -1;
+		assert indexOf(newi) == -1;
 
-		int i = instructions.indexOf(oldi);
-		instructions.remove(oldi);
+		int i = indexOf(oldi);
+		instructions.set(i, newi);
 		oldi.setInstructions(null);
-		instructions.add(i, newi);
 
 		return i;
 	}
+
+	private static class InstructionList extends ArrayList<Instruction>
+	{
+		private static final long serialVersionUID = 1L;
+
+		int modCount()
+		{
+			return modCount;
+		}
+
+		@Override
+		public Instruction set(int index, Instruction element)
+		{
+			// set isn't a structural modification, but it still moves instructions
+			++modCount;
+			return super.set(index, element);
+		}
+	}
 }
@@ -112,7 +112,7 @@ public class Label extends NOP
 	public Instruction next()
 	{
 		Instructions ins = this.getInstructions();
-		int i = ins.getInstructions().indexOf(this);
+		int i = ins.indexOf(this);
 		assert i != -1;
 
 		Instruction next;
@@ -97,7 +97,7 @@ public class NewArray extends Instruction implements IntInstruction
 				throw new IllegalStateException("unknown array type " + type);
 		}
 
-		StackContext ctx = new StackContext(ins, new Type(t), Value.newArray(count.getValue()));
+		StackContext ctx = new StackContext(ins, Type.of(t), Value.newArray(count.getValue()));
 		stack.push(ctx);
 		
 		ins.push(ctx);
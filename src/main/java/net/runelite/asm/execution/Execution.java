@@ -225,12 +225,24 @@ public class Execution
 			// Return to caller
 			popStack(frame);
 
+			if (!staticStep)
+			{
+				frame.release();
+			}
+
 			if (frames.isEmpty())
 			{
 				assert frame.getMethod() == frame.getMethodCtx().getMethod();
 
 				accept(frame.getMethodCtx());
 
+				if (!staticStep)
+				{
+					// free the contexts once they have been visited, as frames
+					// still to be executed can hold on to this one
+					frame.getMethodCtx().reset();
+				}
+
 				if (framesOther.isEmpty())
 				{
 					break;
@@ -224,6 +224,12 @@ public class Frame
 		instructions.add(i);
 	}
 
+	void release()
+	{
+		// contexts of invoked frames can still reference this frame
+		instructions = new ArrayList<>();
+	}
+
 	public List<InstructionContext> getInstructions()
 	{
 		return instructions;
@@ -332,11 +338,7 @@ public class Frame
 	public void nextInstruction()
 	{
 		Instructions ins = method.getCode().getInstructions();
-		List<Instruction> instructions = ins.getInstructions();
-
-		int idx = instructions.indexOf(cur);
-		assert idx != -1;
-		cur = instructions.get(idx + 1);
+		cur = ins.getNext(cur);
 	}
 
 	private InstructionContext lastInstruction()
@@ -357,21 +359,25 @@ public class Frame
 
 		for (Exception e : exceptions.get(ictx.getInstruction()))
 		{
-			Frame f = dup();
-			Stack stack = f.getStack();
+			Label handler = e.getHandler();
 
-			while (stack.getSize() > 0)
+			// don't bother duplicating the frame when the handler has already
+			// been entered from here, the copy would stop right away
+			if (this.ctx.hasJumped(ictx, handler))
 			{
-				stack.pop();
+				continue;
 			}
 
+			Frame f = dup();
+			f.stack = new Stack(method.getCode().getMaxStack());
+
 			InstructionContext ins = new InstructionContext(ictx.getInstruction(), f);
 			StackContext ctx = new StackContext(ins, Type.EXCEPTION, Value.UNKNOWN);
-			stack.push(ctx);
+			f.stack.push(ctx);
 
 			ins.push(ctx);
 
-			f.jump(ictx, e.getHandler());
+			f.cur = handler.next();
 		}
 	}
 
@@ -379,7 +385,7 @@ public class Frame
 	{
 		assert to != null;
 		assert to.getInstructions() == method.getCode().getInstructions();
-		assert method.getCode().getInstructions().getInstructions().contains(to);
+		assert method.getCode().getInstructions().indexOf(to) != -1;
 
 		if (ctx.hasJumped(from, to))
 		{
@@ -26,6 +26,7 @@
 package net.runelite.asm.execution;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import net.runelite.asm.Method;
@@ -41,11 +42,12 @@ public class InstructionContext
 	private Frame frame;
 	private Stack stack; // stack at time ins was executed
 	private Variables variables; // variables at time ins was executed
-	private List<StackContext> pops = new ArrayList<>(); // stack contexts popped by instruction execution
-	private List<StackContext> pushes = new ArrayList<>(); // stack contexts pushed by instruction execution
-	private List<VariableContext> reads = new ArrayList<>(); // lvt reads
-	private List<Method> invokes = new ArrayList<>(); // invokes
-	private List<Frame> branches = new ArrayList<>();
+	// these are allocated on first use, as most instructions have few or none of each
+	private List<StackContext> pops; // stack contexts popped by instruction execution
+	private List<StackContext> pushes; // stack contexts pushed by instruction execution
+	private List<VariableContext> reads; // lvt reads
+	private List<Method> invokes; // invokes
+	private List<Frame> branches;
 	
 	public InstructionContext(Instruction i, Frame f)
 	{
@@ -55,8 +57,23 @@ public class InstructionContext
 		variables = new Variables(frame.getVariables());
 	}
 	
+	private static <T> List<T> add(List<T> list, int count)
+	{
+		if (list == null)
+			return new ArrayList<>(count);
+		return list;
+	}
+	
+	private static <T> List<T> get(List<T> list)
+	{
+		if (list == null)
+			return Collections.emptyList();
+		return list;
+	}
+	
 	public void pop(StackContext... ctx)
 	{
+		pops = add(pops, ctx.length);
 		for (StackContext c : ctx)
 		{
 			c.addPopped(this); // now we know which instruction popped this, record it
@@ -66,12 +83,14 @@ public class InstructionContext
 	
 	public void push(StackContext... ctx)
 	{
+		pushes = add(pushes, ctx.length);
 		for (StackContext c : ctx)
 			pushes.add(c);
 	}
 	
 	public void read(VariableContext... ctx)
 	{
+		reads = add(reads, ctx.length);
 		for (VariableContext c : ctx)
 		{
 			c.addRead(this);
@@ -81,14 +100,16 @@ public class InstructionContext
 	
 	public void invoke(Method method)
 	{
+		invokes = add(invokes, 1);
 		invokes.add(method);
 	}
 	
 	public void branch(Frame frame)
 	{
 		assert frame != this.frame;
-		assert !branches.contains(frame);
+		assert !get(branches).contains(frame);
 		
+		branches = add(branches, 2);
 		branches.add(frame);
 	}
 	
@@ -114,29 +135,29 @@ public class InstructionContext
 	
 	public List<StackContext> getPops()
 	{
-		return pops;
+		return get(pops);
 	}
 	
 	public List<StackContext> getPushes()
 	{
-		return pushes;
+		return get(pushes);
 	}
 	
 	public List<Method> getInvokes()
 	{
-		return invokes;
+		return get(invokes);
 	}
 
 	public List<Frame> getBranches()
 	{
-		return branches;
+		return get(branches);
 	}
 	
 	public List<StackContext> removeStack(int idx)
 	{
 		// idx 0 is top of the stack, 1 is one under
 		// stack contexts are added to 'pops' in the order that they are popped from the stack,
-		StackContext ctx = pops.get(idx);
+		StackContext ctx = getPops().get(idx);
 		assert !ctx.removed;
 		ctx.removed = true;
 		
@@ -156,15 +177,13 @@ public class InstructionContext
 			return false;
 		
 		// check if stack at time of execution is equal
-		Stack ours = new Stack(this.getStack()), // copy stacks since we destroy them
-			theirs = new Stack(ic.getStack());
-		
-		if (ours.getSize() != theirs.getSize()) // is this possible?
+		if (stack.getSize() != ic.stack.getSize()) // is this possible?
 			return false;
 		
-		while (ours.getSize() > 0)
+		List<StackContext> ours = stack.getStack(), theirs = ic.stack.getStack();
+		for (int i = stack.getSize() - 1; i >= 0; --i)
 		{
-			StackContext s1 = ours.pop(), s2 = theirs.pop();
+			StackContext s1 = ours.get(i), s2 = theirs.get(i);
 			
 			if (s1.getPushed().getInstruction() != s2.getPushed().getInstruction())
 				return false;
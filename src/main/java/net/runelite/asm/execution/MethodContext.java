@@ -26,15 +26,20 @@ package net.runelite.asm.execution;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import net.runelite.asm.Method;
 import net.runelite.asm.attributes.code.Instruction;
+import net.runelite.asm.attributes.code.Instructions;
 
 public class MethodContext
 {
 	private Execution execution;
 	private Method method;
-	private Multimap<InstructionContext, Instruction> visited = HashMultimap.create();
+	private final Set<JumpState> jumps = new HashSet<>(); // each jump taken, with the stack it was taken with
 	public Multimap<Instruction, InstructionContext> contexts = HashMultimap.create();
 
 	public MethodContext(Execution execution, Method method)
@@ -55,14 +60,19 @@ public class MethodContext
 
 	protected boolean hasJumped(InstructionContext from, Instruction to)
 	{
-		Collection<Instruction> i = visited.get(from);
-		if (i != null && i.contains(to))
+		Instructions instructions = method.getCode().getInstructions();
+
+		// same test as InstructionContext.equals: the stack is identified by
+		// the instructions which pushed each of its entries
+		List<StackContext> stack = from.getStack().getStack();
+		int[] pushed = new int[from.getStack().getSize()];
+		for (int i = 0; i < pushed.length; ++i)
 		{
-			return true;
+			pushed[i] = instructions.indexOf(stack.get(i).getPushed().getInstruction());
 		}
 
-		visited.put(from, to);
-		return false;
+		long edge = ((long) instructions.indexOf(from.getInstruction()) << 32) | instructions.indexOf(to);
+		return !jumps.add(new JumpState(edge, pushed));
 	}
 
 	public Collection<InstructionContext> getInstructonContexts(Instruction i)
@@ -78,6 +88,38 @@ public class MethodContext
 	public void reset()
 	{
 		contexts.clear();
-		visited.clear();
+		jumps.clear();
+	}
+
+	private static final class JumpState
+	{
+		private final long edge; // index of the jumping instruction and of the target
+		private final int[] pushed;
+		private final int hash;
+
+		JumpState(long edge, int[] pushed)
+		{
+			this.edge = edge;
+			this.pushed = pushed;
+			this.hash = 31 * Long.hashCode(edge) + Arrays.hashCode(pushed);
+		}
+
+		@Override
+		public boolean equals(Object other)
+		{
+			if (!(other instanceof JumpState))
+			{
+				return false;
+			}
+
+			JumpState s = (JumpState) other;
+			return edge == s.edge && Arrays.equals(pushed, s.pushed);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
 	}
 }
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2016-2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.asm.execution;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import net.runelite.asm.ClassGroup;
+import net.runelite.asm.Method;
+
+/**
+ * Runs a non-step execution on several threads. Every frame created for a method,
+ * together with the frames it branches into, is executed by one thread with its own
+ * method context, and the visitors for it are called from that thread, so they must
+ * be thread-safe.
+ *
+ * Frames are executed in waves, starting with the initial methods. Methods invoked
+ * during a wave are set up and executed in the next one, once nothing is running, as
+ * visitors may modify the code of the method they are visiting. Like the serial
+ * execution, every method is invoked at most once. When several frames invoke the same
+ * method, the frame that comes first in its wave wins, and the earliest invocation
+ * within that frame, so the result does not depend on timing.
+ */
+public class ParallelExecution extends Execution
+{
+	private static final Comparator<Invocation> ORDER = Comparator.<Invocation>comparingInt(i -> i.root).thenComparingInt(i -> i.index);
+
+	private final Executor executor;
+	private final Set<Method> invokes = ConcurrentHashMap.newKeySet();
+	private final Map<Method, Invocation> invocations = new ConcurrentHashMap<>();
+	private final ThreadLocal<Root> current = new ThreadLocal<>();
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+	public ParallelExecution(ClassGroup group, Executor executor)
+	{
+		super(group);
+		this.executor = executor;
+		this.executed = ConcurrentHashMap.newKeySet();
+	}
+
+	@Override
+	public void addFrame(Frame frame)
+	{
+		Root root = current.get();
+		if (root != null)
+		{
+			// branches of the frame being executed
+			assert root.frames.get(0).getMethodCtx() == frame.getMethodCtx();
+			root.frames.add(frame);
+		}
+		else
+		{
+			super.addFrame(frame);
+		}
+	}
+
+	@Override
+	public Frame invoke(InstructionContext from, Method to)
+	{
+		if (noInvoke || to.isNative() || invokes.contains(to))
+		{
+			return null;
+		}
+
+		Root root = current.get();
+		Invocation invocation = new Invocation(from, root.index, root.invokes++);
+		invocations.merge(to, invocation, (a, b) -> ORDER.compare(a, b) <= 0 ? a : b);
+		return null;
+	}
+
+	@Override
+	public void run()
+	{
+		if (step || staticStep)
+		{
+			throw new IllegalStateException("parallel execution can't step");
+		}
+
+		List<Frame> wave = new ArrayList<>(frames);
+		wave.addAll(framesOther);
+		frames.clear();
+		framesOther.clear();
+
+		while (!wave.isEmpty())
+		{
+			execute(wave);
+
+			Throwable ex = failure.getAndSet(null);
+			if (ex instanceof RuntimeException)
+			{
+				throw (RuntimeException) ex;
+			}
+			if (ex instanceof Error)
+			{
+				throw (Error) ex;
+			}
+
+			List<Map.Entry<Method, Invocation>> invoked = new ArrayList<>(invocations.entrySet());
+			invocations.clear();
+			invoked.sort(Map.Entry.comparingByValue(ORDER));
+
+			wave = new ArrayList<>();
+			for (Map.Entry<Method, Invocation> entry : invoked)
+			{
+				invokes.add(entry.getKey());
+
+				Frame f = new Frame(this, entry.getKey());
+				f.initialize(entry.getValue().from);
+				wave.add(f);
+			}
+		}
+	}
+
+	@Override
+	public void reset()
+	{
+		super.reset();
+		invokes.clear();
+		invocations.clear();
+	}
+
+	private void execute(List<Frame> wave)
+	{
+		// frames for the same method are executed one after another
+		Map<Method, List<Root>> methods = new LinkedHashMap<>();
+		for (int i = 0; i < wave.size(); ++i)
+		{
+			Frame frame = wave.get(i);
+			methods.computeIfAbsent(frame.getMethod(), m -> new ArrayList<>()).add(new Root(i, frame));
+		}
+
+		CountDownLatch done = new CountDownLatch(methods.size());
+		for (List<Root> roots : methods.values())
+		{
+			executor.execute(() ->
+			{
+				try
+				{
+					for (Root root : roots)
+					{
+						execute(root);
+					}
+				}
+				catch (Throwable ex)
+				{
+					failure.compareAndSet(null, ex);
+				}
+				finally
+				{
+					done.countDown();
+				}
+			});
+		}
+
+		try
+		{
+			done.await();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(ex);
+		}
+	}
+
+	private void execute(Root root)
+	{
+		Frame first = root.frames.get(0);
+
+		current.set(root);
+		try
+		{
+			while (!root.frames.isEmpty())
+			{
+				Frame frame = root.frames.get(0);
+
+				frame.execute();
+				assert !frame.isExecuting();
+
+				accept(frame);
+
+				root.frames.remove(0);
+				frame.release();
+			}
+		}
+		finally
+		{
+			current.remove();
+		}
+
+		accept(first.getMethodCtx());
+		first.getMethodCtx().reset();
+	}
+
+	private static class Root
+	{
+		private final int index;
+		private final List<Frame> frames = new ArrayList<>();
+		private int invokes;
+
+		private Root(int index, Frame frame)
+		{
+			this.index = index;
+			frames.add(frame);
+		}
+	}
+
+	private static class Invocation
+	{
+		private final InstructionContext from;
+		private final int root;
+		private final int index;
+
+		private Invocation(InstructionContext from, int root, int index)
+		{
+			this.from = from;
+			this.root = root;
+			this.index = index;
+		}
+	}
+}
@@ -33,18 +33,26 @@ import net.runelite.asm.Method;
 
 public class Stack
 {
+	private static final StackContext[] EMPTY = new StackContext[0];
+
 	private int size;
-	private final StackContext[] stack;
+	private StackContext[] stack;
+	private final int max;
 
 	public Stack(int sz)
 	{
-		stack = new StackContext[sz * 2]; // XXX FIXME
+		// room for twice the max stack, as the code might have been changed
+		// since it was computed. the array only grows as values are pushed.
+		max = sz * 2; // XXX FIXME
+		stack = sz > 0 ? new StackContext[sz] : EMPTY;
 	}
 	
 	public Stack(Stack other)
 	{
+		// copies only hold what is on the stack
 		this.size = other.size;
-		this.stack = other.stack.clone();
+		this.max = other.max;
+		this.stack = size > 0 ? Arrays.copyOf(other.stack, size) : EMPTY;
 	}
 	
 	private void printStack(StackContext ctx, int level)
@@ -58,17 +66,22 @@ public class Stack
 
 	public void push(StackContext i)
 	{
-		if (size == stack.length)
+		if (size == max)
 		{
 			Method m = i.getPushed().getInstruction().getInstructions().getCode().getMethod();
 			System.err.println("stack overflow in " + m.getClassFile().getName() + " method " + m.getName());
-			for (int c = 0; c < stack.length; ++c)
+			for (int c = 0; c < size; ++c)
 				printStack(stack[c], 0);
 			throw new RuntimeException("Stack overflow");
 		}
 		
 		assert !i.getType().equals(Type.VOID);
 
+		if (size == stack.length)
+		{
+			stack = Arrays.copyOf(stack, Math.min(Math.max(size * 2, 4), max));
+		}
+
 		stack[size] = i;
 		++size;
 	}
@@ -78,7 +91,9 @@ public class Stack
 		if (size <= 0)
 			throw new RuntimeException("Stack underflow");
 
-		return stack[--size];
+		StackContext ctx = stack[--size];
+		stack[size] = null;
+		return ctx;
 	}
 	
 	public int getSize()
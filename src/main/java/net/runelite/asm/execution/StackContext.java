@@ -26,13 +26,14 @@
 package net.runelite.asm.execution;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import net.runelite.asm.Type;
 
 public class StackContext
 {
 	public InstructionContext pushed; // instruction which pushed this
-	public List<InstructionContext> poppeds = new ArrayList<>(); // instructions which popped this
+	private List<InstructionContext> poppeds; // instructions which popped this, allocated on first pop
 	public Type type; // type of this
 	private Value value;
 	public boolean removed;
@@ -59,11 +60,15 @@ public class StackContext
 
 	public List<InstructionContext> getPopped()
 	{
+		if (poppeds == null)
+			return Collections.emptyList();
 		return poppeds;
 	}
 
 	public void addPopped(InstructionContext popped)
 	{
+		if (this.poppeds == null)
+			this.poppeds = new ArrayList<>(1);
 		if (!this.poppeds.contains(popped))
 			this.poppeds.add(popped);
 	}
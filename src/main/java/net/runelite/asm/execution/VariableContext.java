@@ -28,6 +28,7 @@ package net.runelite.asm.execution;
 import net.runelite.asm.Type;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class VariableContext
@@ -35,7 +36,7 @@ public class VariableContext
 	private StackContext ctx; // the value stored
 	private InstructionContext ic; // the instruction which stored it. also ctx.popped?
 	private Type type;
-	private List<InstructionContext> read = new ArrayList<>(); // instructions which reads this
+	private List<InstructionContext> read; // instructions which reads this, allocated on first read
 	private Value value;
 	private boolean isParameter; // if is a parameter. ctx will be the invoking method (in another frame)
 
@@ -90,12 +91,16 @@ public class VariableContext
 	
 	public void addRead(InstructionContext ctx)
 	{
+		if (read == null)
+			read = new ArrayList<>(1);
 		if (!read.contains(ctx))
 			read.add(ctx);
 	}
 
 	public List<InstructionContext> getRead()
 	{
+		if (read == null)
+			return Collections.emptyList();
 		return read;
 	}
 
@@ -27,7 +27,8 @@ package net.runelite.asm.execution;
 
 public class Variables
 {
-	private final VariableContext[] variables;
+	private VariableContext[] variables;
+	private boolean shared; // variables is shared with a copy, and must be copied before it is changed
 
 	public Variables(int sz)
 	{
@@ -36,11 +37,20 @@ public class Variables
 	
 	public Variables(Variables other)
 	{
-		this.variables = other.variables.clone();
+		// most instructions don't store anything, so copies share
+		// the array until either side changes it
+		this.variables = other.variables;
+		this.shared = other.shared = true;
 	}
 
 	public void set(int index, VariableContext value)
 	{
+		if (shared)
+		{
+			variables = variables.clone();
+			shared = false;
+		}
+
 		variables[index] = value;
 	}
 
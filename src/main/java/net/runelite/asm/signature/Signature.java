@@ -30,7 +30,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -39,6 +41,9 @@ public class Signature
 	private static Pattern paramRetPattern = Pattern.compile("\\((.*)\\)(.*)"),
 		paramsPattern = Pattern.compile("(\\[*(?:B|C|Z|S|I|J|F|D|(?:L[^;]*;)))");
 
+	// descriptors are parsed once. signatures can be modified, so these are only ever copied
+	private static final Map<String, Signature> parsed = new ConcurrentHashMap<>();
+
 	private final List<Type> arguments;
 	private final Type rv;
 
@@ -49,6 +54,21 @@ public class Signature
 	}
 
 	public Signature(String str)
+	{
+		this(getParsed(str));
+	}
+
+	private static Signature getParsed(String str)
+	{
+		Signature signature = parsed.get(str);
+		if (signature == null)
+		{
+			signature = parsed.computeIfAbsent(str, Signature::parse);
+		}
+		return signature;
+	}
+
+	private static Signature parse(String str)
 	{
 		Matcher m = paramRetPattern.matcher(str);
 		if (!m.find())
@@ -59,14 +79,14 @@ public class Signature
 		String args = m.group(1), ret = m.group(2);
 
 		m = paramsPattern.matcher(args);
-		arguments = new ArrayList<>();
+		List<Type> arguments = new ArrayList<>();
 		while (m.find())
 		{
 			String arg = m.group(1);
-			arguments.add(new Type(arg));
+			arguments.add(Type.of(arg));
 		}
 
-		rv = new Type(ret);
+		return new Signature(arguments, Type.of(ret));
 	}
 
 	public Signature(Signature other)
@@ -52,7 +52,7 @@ public class ClassFieldVisitor extends FieldVisitor
 	@Override
 	public AnnotationVisitor visitAnnotation(String desc, boolean visible)
 	{
-		Type type = new Type(desc);
+		Type type = Type.of(desc);
 		return new FieldAnnotationVisitor(field, type);
 	}
 
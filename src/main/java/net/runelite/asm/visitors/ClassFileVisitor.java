@@ -69,14 +69,14 @@ public class ClassFileVisitor extends ClassVisitor
 	@Override
 	public AnnotationVisitor visitAnnotation(String desc, boolean visible)
 	{
-		Type type = new Type(desc);
+		Type type = Type.of(desc);
 		return new ClassAnnotationVisitor(classFile, type);
 	}
 
 	@Override
 	public FieldVisitor visitField(int access, String name, String desc, String signature, Object value)
 	{
-		return new ClassFieldVisitor(classFile, access, name, new Type(desc), value);
+		return new ClassFieldVisitor(classFile, access, name, Type.of(desc), value);
 	}
 
 	@Override
@@ -107,7 +107,7 @@ public class CodeVisitor extends MethodVisitor
 	@Override
 	public AnnotationVisitor visitAnnotation(String desc, boolean visible)
 	{
-		Type type = new Type(desc);
+		Type type = Type.of(desc);
 		return new MethodAnnotationVisitor(method, type);
 	}
 
@@ -262,7 +262,7 @@ public class CodeVisitor extends MethodVisitor
 		Field field = new Field(
 			new net.runelite.asm.pool.Class(owner),
 			name,
-			new Type(desc)
+			Type.of(desc)
 		);
 		i.setField(field);
 	}
@@ -274,7 +274,7 @@ public class CodeVisitor extends MethodVisitor
 
 		assert ii instanceof InvokeInterface == itf;
 
-		Type type = new Type(owner);
+		Type type = Type.of(owner);
 
 		net.runelite.asm.pool.Method entry = new net.runelite.asm.pool.Method(
 			new net.runelite.asm.pool.Class(type.getInternalName()),
@@ -378,7 +378,7 @@ public class CodeVisitor extends MethodVisitor
 	public void visitMultiANewArrayInsn(String desc, int dims)
 	{
 		MultiANewArray m = new MultiANewArray(code.getInstructions(), InstructionType.MULTIANEWARRAY);
-		m.setArrayType(new Type(desc));
+		m.setArrayType(Type.of(desc));
 		m.setDimensions(dims);
 		code.getInstructions().addInstruction(m);
 	}
@@ -37,12 +37,12 @@ import java.util.List;
 
 public class DeobAnnotations
 {
-	public static final Type OBFUSCATED_NAME = new Type("Lnet/runelite/mapping/ObfuscatedName;");
-	public static final Type EXPORT = new Type("Lnet/runelite/mapping/Export;");
-	public static final Type IMPLEMENTS = new Type("Lnet/runelite/mapping/Implements;");
-	public static final Type OBFUSCATED_GETTER = new Type("Lnet/runelite/mapping/ObfuscatedGetter;");
-	public static final Type OBFUSCATED_SIGNATURE = new Type("Lnet/runelite/mapping/ObfuscatedSignature;");
-	public static final Type HOOK = new Type("Lnet/runelite/mapping/Hook;");
+	public static final Type OBFUSCATED_NAME = Type.of("Lnet/runelite/mapping/ObfuscatedName;");
+	public static final Type EXPORT = Type.of("Lnet/runelite/mapping/Export;");
+	public static final Type IMPLEMENTS = Type.of("Lnet/runelite/mapping/Implements;");
+	public static final Type OBFUSCATED_GETTER = Type.of("Lnet/runelite/mapping/ObfuscatedGetter;");
+	public static final Type OBFUSCATED_SIGNATURE = Type.of("Lnet/runelite/mapping/ObfuscatedSignature;");
+	public static final Type HOOK = Type.of("Lnet/runelite/mapping/Hook;");
 
 	public static Signature getObfuscatedSignature(Method m)
 	{
@@ -65,7 +65,7 @@ public class DeobAnnotations
 			return null;
 		}
 
-		return new Type(str);
+		return Type.of(str);
 	}
 
 	public static String getObfuscatedName(Annotations an)
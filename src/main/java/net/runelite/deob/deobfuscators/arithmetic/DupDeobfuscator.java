@@ -138,7 +138,7 @@ public class DupDeobfuscator implements Deobfuscator
 
 		StackContext duplicated = ictx.getPops().get(0);
 
-		int idx = instructions.getInstructions().indexOf(ictx.getInstruction());
+		int idx = instructions.indexOf(ictx.getInstruction());
 		assert idx != -1;
 
 		// replace dup with duplicated instructions
@@ -174,7 +174,7 @@ public class DupDeobfuscator implements Deobfuscator
 
 		// can't swap a long on the stack, so
 
-		int idx = instructions.getInstructions().indexOf(ictx.getInstruction());
+		int idx = instructions.indexOf(ictx.getInstruction());
 		assert idx != -1;
 
 		instructions.remove(ictx.getInstruction()); // remove dup2_x1
@@ -27,6 +27,7 @@ package net.runelite.deob.deobfuscators.arithmetic;
 import static java.lang.Math.abs;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -36,7 +37,14 @@ class FieldInfo
 {
 	public final Set<Number> getters = new HashSet<>();
 	public final Set<Number> setters = new HashSet<>();
-	public final Set<AssociatedConstant> constants = new HashSet<>();
+	public final Set<AssociatedConstant> constants = new LinkedHashSet<>(); // in the order found, guesses are made in this order
+
+	void addAll(FieldInfo other)
+	{
+		getters.addAll(other.getters);
+		setters.addAll(other.setters);
+		constants.addAll(other.constants);
+	}
 
 	boolean guessDecreasesConstants(Pair guess)
 	{
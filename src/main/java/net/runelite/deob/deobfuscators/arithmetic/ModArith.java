@@ -33,6 +33,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import net.runelite.asm.ClassFile;
@@ -65,6 +67,7 @@ import net.runelite.asm.attributes.code.instructions.LSub;
 import net.runelite.asm.execution.Execution;
 import net.runelite.asm.execution.InstructionContext;
 import net.runelite.asm.execution.MethodContext;
+import net.runelite.asm.execution.ParallelExecution;
 import net.runelite.asm.execution.StackContext;
 import net.runelite.deob.DeobAnnotations;
 import net.runelite.deob.Deobfuscator;
@@ -74,12 +77,27 @@ import static net.runelite.deob.deobfuscators.arithmetic.DMath.multiply;
 
 public class ModArith implements Deobfuscator {
     private ClassGroup group;
-    private Execution execution;
     private final Map<Field, FieldInfo> fieldInfo = new HashMap<>();
+    // what was found in each method the last time it was executed, kept across rounds
+    private final Map<Method, MethodInfo> methodInfo = new HashMap<>();
     private List<Pair> pairs = new ArrayList<>();
     private Encryption encryption = new Encryption();
+    private final Executor executor;
+
+    public ModArith() {
+        this(null);
+    }
+
+    // methods are executed concurrently on the executor, if any
+    public ModArith(Executor executor) {
+        this.executor = executor;
+    }
 
     private FieldInfo getFieldInfo(Field field) {
+        return getFieldInfo(fieldInfo, field);
+    }
+
+    private static FieldInfo getFieldInfo(Map<Field, FieldInfo> fieldInfo, Field field) {
         FieldInfo f = fieldInfo.get(field);
         if (f == null) {
             f = new FieldInfo();
@@ -131,7 +149,7 @@ public class ModArith implements Deobfuscator {
     }
 
     // find associated constants with each field
-    private void findConstants(MethodContext mctx) {
+    private void findConstants(MethodContext mctx, Map<Field, FieldInfo> fields) {
         for (InstructionContext ctx : mctx.getInstructionContexts()) {
             if (ctx.getInstruction() instanceof FieldInstruction) {
                 FieldInstruction fi = (FieldInstruction) ctx.getInstruction();
@@ -146,7 +164,7 @@ public class ModArith implements Deobfuscator {
                     continue;
                 }
 
-                FieldInfo fieldInfo = getFieldInfo(fi.getMyField());
+                FieldInfo fieldInfo = getFieldInfo(fields, fi.getMyField());
 
                 List<InstructionContext> l = getInsInExpr(ctx, new HashSet(), false);
                 boolean other = false; // check if this contains another field
@@ -201,7 +219,7 @@ public class ModArith implements Deobfuscator {
     }
 
     // find potential getters/setters for each field
-    private void findUses(MethodContext mctx) {
+    private void findUses(MethodContext mctx, Map<Field, FieldInfo> fields) {
         for (InstructionContext ctx : mctx.getInstructionContexts()) {
             if (ctx.getInstruction() instanceof IMul || ctx.getInstruction() instanceof LMul) {
                 Instruction one = ctx.getPops().get(0).getPushed().getInstruction();
@@ -226,7 +244,7 @@ public class ModArith implements Deobfuscator {
                     continue;
                 }
 
-                FieldInfo fieldInfo = getFieldInfo(field);
+                FieldInfo fieldInfo = getFieldInfo(fields, field);
 
                 // parse the full multiplication expression to
                 // get all associated constants
@@ -253,7 +271,7 @@ public class ModArith implements Deobfuscator {
                     continue;
                 }
 
-                FieldInfo fieldInfo = getFieldInfo(field);
+                FieldInfo fieldInfo = getFieldInfo(fields, field);
 
                 InstructionContext pushedsfi = ctx.getPops().get(0).getPushed(); // value being set
                 pushedsfi = pushedsfi.resolve(ctx.getPops().get(0));
@@ -593,17 +611,104 @@ public class ModArith implements Deobfuscator {
         }
     }
 
+    private void visit(MethodContext mctx, Map<Method, MethodInfo> executed) {
+        MethodInfo info = executed.computeIfAbsent(mctx.getMethod(), MethodInfo::new);
+
+        findUses(mctx, info.fieldInfo);
+        findConstants(mctx, info.fieldInfo);
+
+        for (InstructionContext ctx : mctx.getInstructionContexts()) {
+            for (Method m : ctx.getInvokes()) {
+                if (m.getCode() != null && !m.isNative()) {
+                    info.invokes.add(m);
+                }
+            }
+        }
+    }
+
+    private void execute(Collection<Method> methods, boolean invoke) {
+        Map<Method, MethodInfo> executed = new ConcurrentHashMap<>();
+
+        Execution execution = executor != null ? new ParallelExecution(group, executor) : new Execution(group);
+        execution.noInvoke = !invoke;
+        execution.addMethodContextVisitor(i -> visit(i, executed));
+        for (Method m : methods) {
+            execution.addMethod(m);
+        }
+        execution.run();
+
+        methodInfo.putAll(executed);
+    }
+
+    /*
+     * What findUses and findConstants collect from a method only depends on the
+     * method's own code, not on its callers. So after the first round, only the
+     * methods whose code has changed since they were last executed (usually the
+     * ones accessing fields solved in the previous round) are executed again, on
+     * their own, and the results for the others are kept.
+     *
+     * Methods are only executed while reachable from the initial methods, same as
+     * a full execution would, so the call graph is followed through the invokes
+     * recorded for each method.
+     */
+    private void execute() {
+        List<Method> initial = new ArrayList<>();
+        for (Method m : new Execution(group).getInitialMethods()) {
+            if (m.getCode() != null) {
+                initial.add(m);
+            }
+        }
+
+        if (methodInfo.isEmpty()) {
+            execute(initial, true);
+        }
+
+        while (true) {
+            Set<Method> reachable = new HashSet<>();
+            List<Method> stale = new ArrayList<>();
+            List<Method> queue = new ArrayList<>(initial);
+
+            while (!queue.isEmpty()) {
+                Method m = queue.removeLast();
+                if (!reachable.add(m)) {
+                    continue;
+                }
+
+                MethodInfo info = methodInfo.get(m);
+                if (info == null || info.isStale()) {
+                    stale.add(m);
+                } else {
+                    queue.addAll(info.invokes);
+                }
+            }
+
+            methodInfo.keySet().retainAll(reachable);
+
+            if (stale.isEmpty()) {
+                break;
+            }
+
+            execute(stale, false);
+        }
+    }
+
     public int runOnce() {
         group.buildClassGraph();
 
         pairs.clear();
         fieldInfo.clear();
 
-        execution = new Execution(group);
-        execution.addMethodContextVisitor(i -> findUses(i));
-        execution.addMethodContextVisitor(i -> findConstants(i));
-        execution.populateInitialMethods();
-        execution.run();
+        execute();
+
+        // merged in program order, so the constants are in the same order however the methods were executed
+        for (ClassFile cf : group.getClasses()) {
+            for (Method m : cf.getMethods()) {
+                MethodInfo info = methodInfo.get(m);
+                if (info != null) {
+                    info.fieldInfo.forEach((field, f) -> getFieldInfo(field).addAll(f));
+                }
+            }
+        }
 
         guess();
 
@@ -646,4 +751,39 @@ public class ModArith implements Deobfuscator {
     Encryption getEncryption() {
         return encryption;
     }
+
+    private static class MethodInfo {
+        private final Method method;
+        private final Instructions instructions;
+        private final int modCount;
+        private final List<Object> constants;
+        private final Map<Field, FieldInfo> fieldInfo = new HashMap<>();
+        private final Set<Method> invokes = new HashSet<>();
+
+        private MethodInfo(Method method) {
+            this.method = method;
+            this.instructions = method.getCode().getInstructions();
+            this.modCount = instructions.getModCount();
+            this.constants = getConstants(instructions);
+        }
+
+        // constants are changed in place, without modifying the instruction list
+        private static List<Object> getConstants(Instructions instructions) {
+            List<Object> constants = new ArrayList<>();
+            for (Instruction i : instructions.getInstructions()) {
+                if (i instanceof PushConstantInstruction) {
+                    constants.add(((PushConstantInstruction) i).getConstant());
+                }
+            }
+            return constants;
+        }
+
+        private boolean isStale() {
+            Code code = method.getCode();
+            return code == null
+                    || code.getInstructions() != instructions
+                    || instructions.getModCount() != modCount
+                    || !getConstants(instructions).equals(constants);
+        }
+    }
 }
@@ -26,8 +26,10 @@
 package net.runelite.deob.deobfuscators.arithmetic;
 
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.runelite.asm.ClassGroup;
 import net.runelite.asm.attributes.code.Instruction;
 import net.runelite.asm.attributes.code.instruction.types.DupInstruction;
@@ -48,6 +50,7 @@ import net.runelite.asm.attributes.code.instructions.Swap;
 import net.runelite.asm.execution.Execution;
 import net.runelite.asm.execution.InstructionContext;
 import net.runelite.asm.execution.MethodContext;
+import net.runelite.asm.execution.ParallelExecution;
 import net.runelite.asm.execution.StackContext;
 import net.runelite.asm.execution.VariableContext;
 import net.runelite.asm.execution.Variables;
@@ -56,6 +59,18 @@ import net.runelite.deob.Deobfuscator;
 public class MultiplicationDeobfuscator implements Deobfuscator
 {
 	private ClassGroup group;
+	private final Executor executor;
+
+	public MultiplicationDeobfuscator()
+	{
+		this(null);
+	}
+
+	// methods are executed concurrently on the executor, if any
+	public MultiplicationDeobfuscator(Executor executor)
+	{
+		this.executor = executor;
+	}
 	
 	@Override
 	public void run(ClassGroup group)
@@ -324,7 +339,7 @@ public class MultiplicationDeobfuscator implements Deobfuscator
 		return true;
 	}
 	
-	private Set<Instruction> done = new HashSet<>();
+	private Set<Instruction> done = ConcurrentHashMap.newKeySet();
 	
 	private void visit(MethodContext ctx)
 	{
@@ -361,11 +376,11 @@ public class MultiplicationDeobfuscator implements Deobfuscator
 			assert instruction instanceof IMul || instruction instanceof LMul;
 			if (instruction instanceof IMul)
 			{
-				count += expression.simplify(1);
+				count.addAndGet(expression.simplify(1));
 			}
 			else if (instruction instanceof LMul)
 			{
-				count += expression.simplify(1L);
+				count.addAndGet(expression.simplify(1L));
 			}
 			else
 			{
@@ -374,20 +389,20 @@ public class MultiplicationDeobfuscator implements Deobfuscator
 		}
 	}
 	
-	int count;
+	private final AtomicInteger count = new AtomicInteger();
 	
 	private int runOnce()
 	{
 		group.buildClassGraph();
 		
-		count = 0;
+		count.set(0);
 		
-		Execution e = new Execution(group);
+		Execution e = executor != null ? new ParallelExecution(group, executor) : new Execution(group);
 		e.addMethodContextVisitor(m -> visit(m));
 		e.populateInitialMethods();
 		e.run();
 		
-		return count;
+		return count.get();
 	}
 
 }
@@ -24,7 +24,6 @@
  */
 package net.runelite.deob.deobfuscators.arithmetic;
 
-import java.util.List;
 import net.runelite.asm.ClassGroup;
 import net.runelite.asm.attributes.code.Instruction;
 import net.runelite.asm.attributes.code.Instructions;
@@ -64,9 +63,7 @@ public class MultiplyOneDeobfuscator implements Deobfuscator
 				continue;
 			}
 
-			List<Instruction> ilist = ins.getInstructions();
-
-			if (!ilist.contains(ictx.getInstruction()))
+			if (ins.indexOf(ictx.getInstruction()) == -1)
 			{
 				continue; // already done
 			}
@@ -25,7 +25,8 @@
 
 package net.runelite.deob.deobfuscators.arithmetic;
 
-import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.runelite.asm.ClassGroup;
 import net.runelite.asm.attributes.code.Instruction;
 import net.runelite.asm.attributes.code.Instructions;
@@ -36,12 +37,25 @@ import net.runelite.asm.attributes.code.instructions.LMul;
 import net.runelite.asm.execution.Execution;
 import net.runelite.asm.execution.InstructionContext;
 import net.runelite.asm.execution.MethodContext;
+import net.runelite.asm.execution.ParallelExecution;
 import net.runelite.asm.execution.StackContext;
 import net.runelite.deob.Deobfuscator;
 
 public class MultiplyZeroDeobfuscator implements Deobfuscator
 {
-	private int count;
+	private final AtomicInteger count = new AtomicInteger();
+	private final Executor executor;
+
+	public MultiplyZeroDeobfuscator()
+	{
+		this(null);
+	}
+
+	// methods are executed concurrently on the executor, if any
+	public MultiplyZeroDeobfuscator(Executor executor)
+	{
+		this.executor = executor;
+	}
 
 	private void visit(MethodContext mctx)
 	{
@@ -59,8 +73,6 @@ public class MultiplyZeroDeobfuscator implements Deobfuscator
 				continue;
 			}
 
-			List<Instruction> ilist = ins.getInstructions();
-
 			StackContext one = ictx.getPops().get(0);
 			StackContext two = ictx.getPops().get(1);
 
@@ -94,7 +106,7 @@ public class MultiplyZeroDeobfuscator implements Deobfuscator
 				continue;
 			}
 
-			if (!ilist.contains(instruction))
+			if (ins.indexOf(instruction) == -1)
 			{
 				continue; // already done
 			}
@@ -120,7 +132,7 @@ public class MultiplyZeroDeobfuscator implements Deobfuscator
 				throw new IllegalStateException();
 			}
 
-			++count;
+			count.incrementAndGet();
 
 		}
 	}
@@ -128,7 +140,7 @@ public class MultiplyZeroDeobfuscator implements Deobfuscator
 	@Override
 	public void run(ClassGroup group)
 	{
-		Execution e = new Execution(group);
+		Execution e = executor != null ? new ParallelExecution(group, executor) : new Execution(group);
 		e.addMethodContextVisitor(i -> visit(i));
 		e.populateInitialMethods();
 		e.run();
@@ -28,11 +28,13 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Enumeration;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
+import java.util.stream.Collectors;
 import net.runelite.asm.ClassFile;
 import net.runelite.asm.ClassGroup;
 import net.runelite.asm.objectwebasm.NonloadingClassWriter;
@@ -40,6 +42,10 @@ import net.runelite.asm.visitors.ClassFileVisitor;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
 import org.objectweb.asm.util.CheckClassAdapter;
 
 public class RlJarUtil
@@ -50,24 +56,63 @@ public class RlJarUtil
 
 		try (JarFile jar = new JarFile(jarfile))
 		{
-			for (Enumeration<JarEntry> it = jar.entries(); it.hasMoreElements();)
+			List<JarEntry> entries = jar.stream()
+				.filter(entry -> entry.getName().endsWith(".class"))
+				.collect(Collectors.toList());
+
+			// classes are parsed in parallel, but added in jar order
+			List<ClassFile> classes = entries.parallelStream()
+				.map(entry -> loadClass(jar, entry))
+				.collect(Collectors.toList());
+
+			for (ClassFile cf : classes)
 			{
-				JarEntry entry = it.nextElement();
+				group.addClass(cf);
+			}
+		}
+		catch (UncheckedIOException ex)
+		{
+			throw ex.getCause();
+		}
 
-				if (!entry.getName().endsWith(".class"))
-				{
-					continue;
-				}
+		group.initialize();
 
-				InputStream is = jar.getInputStream(entry);
+		return group;
+	}
 
-				ClassReader reader = new ClassReader(is);
-				ClassFileVisitor cv = new ClassFileVisitor();
+	private static ClassFile loadClass(JarFile jar, JarEntry entry)
+	{
+		try (InputStream is = jar.getInputStream(entry))
+		{
+			ClassReader reader = new ClassReader(is.readAllBytes());
+			ClassFileVisitor cv = new ClassFileVisitor();
 
-				reader.accept(cv, ClassReader.SKIP_FRAMES);
+			reader.accept(cv, ClassReader.SKIP_FRAMES);
 
-				group.addClass(cv.getClassFile());
-			}
+			return cv.getClassFile();
+		}
+		catch (IOException ex)
+		{
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * builds a group directly from asm tree classes, without writing them to a jar first
+	 */
+	public static ClassGroup loadClasses(List<ClassNode> classes)
+	{
+		ClassGroup group = new ClassGroup();
+
+		for (ClassNode node : classes)
+		{
+			// the execution sizes its stack and locals from the maxs, which earlier passes may have left stale
+			computeMaxs(node.name, node.methods);
+
+			ClassFileVisitor cv = new ClassFileVisitor();
+			node.accept(cv);
+
+			group.addClass(cv.getClassFile());
 		}
 
 		group.initialize();
@@ -75,6 +120,62 @@ public class RlJarUtil
 		return group;
 	}
 
+	/**
+	 * replaces the contents of classes with the classes in the group
+	 */
+	public static void saveClasses(ClassGroup group, List<ClassNode> classes)
+	{
+		classes.clear();
+
+		for (ClassFile cf : group.getClasses())
+		{
+			ClassNode node = new ClassNode();
+			cf.accept(node);
+
+			computeMaxs(node.name, node.methods);
+
+			classes.add(node);
+		}
+	}
+
+	/**
+	 * recomputes max stack and max locals of the methods, as a ClassWriter with COMPUTE_MAXS would.
+	 * only the code is written, and read back just far enough to see the computed values
+	 */
+	private static void computeMaxs(String owner, List<MethodNode> methods)
+	{
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, owner, null, "java/lang/Object", null);
+
+		for (MethodNode method : methods)
+		{
+			method.accept(writer);
+		}
+
+		writer.visitEnd();
+
+		new ClassReader(writer.toByteArray()).accept(new ClassVisitor(Opcodes.ASM9)
+		{
+			private int index;
+
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions)
+			{
+				MethodNode method = methods.get(index++);
+
+				return new MethodVisitor(Opcodes.ASM9)
+				{
+					@Override
+					public void visitMaxs(int maxStack, int maxLocals)
+					{
+						method.maxStack = maxStack;
+						method.maxLocals = maxLocals;
+					}
+				};
+			}
+		}, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+	}
+
 	public static void saveJar(ClassGroup group, File jarfile) throws IOException
 	{
 		try (JarOutputStream jout = new JarOutputStream(new FileOutputStream(jarfile), new Manifest()))
@@ -0,0 +1,285 @@
+package rs.lostcity.asm;
+
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A class hierarchy analysis call graph over the methods of a {@link ClassPool}.
+ * A virtual or interface call reaches the implementation it resolves to and the
+ * one every subclass of the owner selects, declared or inherited; static and special
+ * calls only reach the method they resolve to. Calls to classes outside the pool are ignored, so anything the
+ * runtime or a library calls back into has to be among the entry points.
+ * <p>
+ * Methods are numbered in pool order and the edges in both directions are stored
+ * as compact int arrays. Reachability from the entry points is computed up front.
+ */
+public class CallGraph {
+    private final MethodNode[] methods;
+    private final ClassNode[] owners;
+    private final Map<MethodNode, Integer> ids = new IdentityHashMap<>();
+
+    private final int[] calleeStart;
+    private final int[] callees;
+    private final int[] callerStart;
+    private final int[] callers;
+
+    private final BitSet reachable = new BitSet();
+
+    private final ClassPool classPool;
+    private final Map<String, List<ClassNode>> subclasses = new HashMap<>();
+    private final Map<String, int[]> resolved = new HashMap<>();
+
+    public CallGraph(ClassPool classPool, Predicate<MethodNode> entryPoints) {
+        this.classPool = classPool;
+
+        List<MethodNode> methods = new ArrayList<>();
+        List<ClassNode> owners = new ArrayList<>();
+
+        for (ClassNode clazz : classPool.getClasses()) {
+            for (MethodNode method : clazz.methods) {
+                ids.put(method, methods.size());
+                methods.add(method);
+                owners.add(clazz);
+            }
+
+            if (clazz.superName != null) {
+                subclasses.computeIfAbsent(clazz.superName, k -> new ArrayList<>()).add(clazz);
+            }
+
+            for (String iface : clazz.interfaces) {
+                subclasses.computeIfAbsent(iface, k -> new ArrayList<>()).add(clazz);
+            }
+        }
+
+        this.methods = methods.toArray(new MethodNode[0]);
+        this.owners = owners.toArray(new ClassNode[0]);
+
+        int size = this.methods.length;
+        calleeStart = new int[size + 1];
+        int[] edges = new int[size];
+        int count = 0;
+
+        for (int i = 0; i < size; i++) {
+            calleeStart[i] = count;
+
+            for (AbstractInsnNode insn : this.methods[i].instructions) {
+                int[] targets = null;
+
+                if (insn instanceof MethodInsnNode methodInsn) {
+                    targets = this.resolve(methodInsn.getOpcode(), methodInsn.owner, methodInsn.name, methodInsn.desc);
+                } else if (insn instanceof InvokeDynamicInsnNode indy && indy.bsmArgs.length > 1 && indy.bsmArgs[1] instanceof Handle handle) {
+                    int opcode = handle.getTag() == Opcodes.H_INVOKESTATIC ? Opcodes.INVOKESTATIC : Opcodes.INVOKEVIRTUAL;
+                    targets = this.resolve(opcode, handle.getOwner(), handle.getName(), handle.getDesc());
+                }
+
+                if (targets == null) {
+                    continue;
+                }
+
+                if (count + targets.length > edges.length) {
+                    edges = Arrays.copyOf(edges, Math.max(edges.length * 2, count + targets.length));
+                }
+
+                System.arraycopy(targets, 0, edges, count, targets.length);
+                count += targets.length;
+            }
+        }
+
+        calleeStart[size] = count;
+        callees = Arrays.copyOf(edges, count);
+
+        // invert the edges with a counting sort on the callee
+        callerStart = new int[size + 1];
+        for (int callee : callees) {
+            callerStart[callee + 1]++;
+        }
+
+        for (int i = 0; i < size; i++) {
+            callerStart[i + 1] += callerStart[i];
+        }
+
+        callers = new int[count];
+        int[] next = Arrays.copyOf(callerStart, size);
+
+        for (int caller = 0; caller < size; caller++) {
+            for (int j = calleeStart[caller]; j < calleeStart[caller + 1]; j++) {
+                callers[next[callees[j]]++] = caller;
+            }
+        }
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+
+        for (int i = 0; i < size; i++) {
+            if (entryPoints.test(this.methods[i])) {
+                reachable.set(i);
+                queue.add(i);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int caller = queue.poll();
+
+            for (int j = calleeStart[caller]; j < calleeStart[caller + 1]; j++) {
+                int callee = callees[j];
+
+                if (!reachable.get(callee)) {
+                    reachable.set(callee);
+                    queue.add(callee);
+                }
+            }
+        }
+
+        // only needed while building
+        subclasses.clear();
+        resolved.clear();
+    }
+
+    public int size() {
+        return methods.length;
+    }
+
+    public int getReachableCount() {
+        return reachable.cardinality();
+    }
+
+    public boolean contains(MethodNode method) {
+        return ids.containsKey(method);
+    }
+
+    public boolean isReachable(MethodNode method) {
+        Integer id = ids.get(method);
+        return id != null && reachable.get(id);
+    }
+
+    public ClassNode getOwner(MethodNode method) {
+        return owners[ids.get(method)];
+    }
+
+    public List<MethodNode> getCallees(MethodNode method) {
+        int id = ids.get(method);
+        return this.toMethods(callees, calleeStart[id], calleeStart[id + 1]);
+    }
+
+    public List<MethodNode> getCallers(MethodNode method) {
+        int id = ids.get(method);
+        return this.toMethods(callers, callerStart[id], callerStart[id + 1]);
+    }
+
+    private List<MethodNode> toMethods(int[] edges, int start, int end) {
+        List<MethodNode> result = new ArrayList<>(end - start);
+
+        for (int i = start; i < end; i++) {
+            result.add(methods[edges[i]]);
+        }
+
+        return result;
+    }
+
+    private int[] resolve(int opcode, String owner, String name, String desc) {
+        String key = opcode + " " + owner + "." + name + desc;
+
+        int[] targets = resolved.get(key);
+        if (targets == null) {
+            BitSet found = new BitSet();
+
+            MethodNode declared = this.resolveDeclared(owner, name, desc);
+            if (declared != null) {
+                found.set(ids.get(declared));
+            }
+
+            if (opcode == Opcodes.INVOKEVIRTUAL || opcode == Opcodes.INVOKEINTERFACE) {
+                this.collectOverrides(owner, name, desc, found);
+            }
+
+            targets = found.stream().toArray();
+            resolved.put(key, targets);
+        }
+
+        return targets;
+    }
+
+    private MethodNode resolveDeclared(String owner, String name, String desc) {
+        ClassNode clazz = classPool.get(owner);
+        if (clazz == null) {
+            return null;
+        }
+
+        MethodNode method = classPool.getMethod(owner, name, desc);
+        if (method != null) {
+            return method;
+        }
+
+        if (clazz.superName != null) {
+            method = this.resolveDeclared(clazz.superName, name, desc);
+            if (method != null) {
+                return method;
+            }
+        }
+
+        for (String iface : clazz.interfaces) {
+            method = this.resolveDeclared(iface, name, desc);
+            if (method != null) {
+                return method;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * The method a virtual call on an instance of the class selects: its own, or else
+     * the one it inherits from its superclasses. The inherited one can be declared in
+     * a class that isn't a subtype of the call's owner, e.g. when a subclass picks up
+     * an interface that its superclass already implements the methods of.
+     */
+    private MethodNode resolveImplementation(String owner, String name, String desc) {
+        for (ClassNode clazz = classPool.get(owner); clazz != null; clazz = clazz.superName != null ? classPool.get(clazz.superName) : null) {
+            MethodNode method = classPool.getMethod(clazz.name, name, desc);
+            if (method != null && (method.access & (Opcodes.ACC_STATIC | Opcodes.ACC_PRIVATE)) == 0) {
+                return method;
+            }
+        }
+
+        return null;
+    }
+
+    private void collectOverrides(String owner, String name, String desc, BitSet found) {
+        ArrayDeque<String> queue = new ArrayDeque<>();
+        queue.add(owner);
+
+        // interfaces can reach the same class along several paths
+        Set<String> visited = new HashSet<>();
+
+        while (!queue.isEmpty()) {
+            for (ClassNode subclass : subclasses.getOrDefault(queue.poll(), List.of())) {
+                if (!visited.add(subclass.name)) {
+                    continue;
+                }
+
+                MethodNode method = this.resolveImplementation(subclass.name, name, desc);
+                if (method != null) {
+                    found.set(ids.get(method));
+                }
+
+                queue.add(subclass.name);
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package rs.lostcity.asm;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * The classes being transformed, indexed by name, together with a reverse index of
+ * the instructions that reference each field and method. References are keyed by
+ * member name only: the transformers that use them run after everything has been
+ * given a unique name, and a reference may name a subclass rather than the declaring
+ * class, so callers check owner and descriptor themselves where it matters.
+ * <p>
+ * The indexes are built on first use and kept up to date by the methods below, so
+ * moving or removing members and rewriting their references only touches the
+ * instructions involved. Anything that edits the classes or their code behind the
+ * pool's back, including renaming a referenced member, has to call
+ * {@link #update(MethodNode)} or {@link #invalidate()}. The pool also caches an
+ * {@link InheritanceGraph} and a {@link CallGraph}, which any change to the classes
+ * or methods respectively throws away.
+ */
+public class ClassPool {
+    private final List<ClassNode> classes;
+
+    private Map<String, ClassNode> classesByName;
+    private Map<String, Set<MethodInsnNode>> methodReferences;
+    private Map<String, Set<FieldInsnNode>> fieldReferences;
+    private Map<MethodNode, List<AbstractInsnNode>> referencesByMethod;
+
+    private InheritanceGraph inheritanceGraph;
+    private CallGraph callGraph;
+    private Predicate<MethodNode> callGraphEntryPoints;
+
+    public ClassPool(List<ClassNode> classes) {
+        this.classes = classes;
+    }
+
+    public List<ClassNode> getClasses() {
+        return classes;
+    }
+
+    public synchronized ClassNode get(String name) {
+        if (classesByName == null) {
+            classesByName = new HashMap<>();
+
+            for (ClassNode clazz : classes) {
+                classesByName.put(clazz.name, clazz);
+            }
+        }
+
+        return classesByName.get(name);
+    }
+
+    public MethodNode getMethod(String owner, String name, String desc) {
+        ClassNode clazz = this.get(owner);
+        if (clazz == null) {
+            return null;
+        }
+
+        for (MethodNode method : clazz.methods) {
+            if (method.name.equals(name) && method.desc.equals(desc)) {
+                return method;
+            }
+        }
+
+        return null;
+    }
+
+    public FieldNode getField(String owner, String name, String desc) {
+        ClassNode clazz = this.get(owner);
+        if (clazz == null) {
+            return null;
+        }
+
+        for (FieldNode field : clazz.fields) {
+            if (field.name.equals(name) && field.desc.equals(desc)) {
+                return field;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * The method instructions, in any class, that invoke a method with the given name.
+     */
+    public synchronized Set<MethodInsnNode> getMethodReferences(String name) {
+        this.indexReferences();
+        return Collections.unmodifiableSet(methodReferences.getOrDefault(name, Set.of()));
+    }
+
+    /**
+     * The field instructions, in any class, that read or write a field with the given name.
+     */
+    public synchronized Set<FieldInsnNode> getFieldReferences(String name) {
+        this.indexReferences();
+        return Collections.unmodifiableSet(fieldReferences.getOrDefault(name, Set.of()));
+    }
+
+    /**
+     * The inheritance closure of the pool, cached until a class is added or the
+     * hierarchy is edited behind the pool's back.
+     */
+    public synchronized InheritanceGraph getInheritanceGraph() {
+        if (inheritanceGraph == null) {
+            inheritanceGraph = new InheritanceGraph(classes);
+        }
+
+        return inheritanceGraph;
+    }
+
+    /**
+     * The call graph from the given entry points, cached until a method is added,
+     * removed, moved or has its code updated through the pool.
+     */
+    public synchronized CallGraph getCallGraph(Predicate<MethodNode> entryPoints) {
+        if (callGraph == null || callGraphEntryPoints != entryPoints) {
+            callGraph = new CallGraph(this, entryPoints);
+            callGraphEntryPoints = entryPoints;
+        }
+
+        return callGraph;
+    }
+
+    public synchronized void addClass(ClassNode clazz) {
+        classes.add(clazz);
+        inheritanceGraph = null;
+        callGraph = null;
+
+        if (classesByName != null) {
+            classesByName.put(clazz.name, clazz);
+        }
+
+        if (referencesByMethod != null) {
+            for (MethodNode method : clazz.methods) {
+                this.index(method);
+            }
+        }
+    }
+
+    public synchronized void moveMethod(ClassNode from, ClassNode to, MethodNode method) {
+        from.methods.remove(method);
+        to.methods.add(method);
+        callGraph = null;
+    }
+
+    public void moveField(ClassNode from, ClassNode to, FieldNode field) {
+        from.fields.remove(field);
+        to.fields.add(field);
+    }
+
+    public synchronized void removeMethod(ClassNode clazz, MethodNode method) {
+        clazz.methods.remove(method);
+        callGraph = null;
+
+        if (referencesByMethod != null) {
+            this.unindex(method);
+        }
+    }
+
+    /**
+     * Re-indexes the references made by a method whose code was edited directly.
+     */
+    public synchronized void update(MethodNode method) {
+        callGraph = null;
+
+        if (referencesByMethod != null) {
+            this.unindex(method);
+            this.index(method);
+        }
+    }
+
+    /**
+     * Drops every index, for when the classes have been replaced or edited wholesale.
+     */
+    public synchronized void invalidate() {
+        this.invalidate(false, false);
+    }
+
+    /**
+     * Drops every index, but keeps the inheritance graph if the edits are known to have
+     * left the classes and their superclasses and interfaces as they were, and the call
+     * graph if they also left the methods and the calls between them alone.
+     */
+    public synchronized void invalidate(boolean keepInheritanceGraph, boolean keepCallGraph) {
+        classesByName = null;
+        methodReferences = null;
+        fieldReferences = null;
+        referencesByMethod = null;
+
+        if (!keepInheritanceGraph) {
+            inheritanceGraph = null;
+        }
+
+        if (!keepInheritanceGraph || !keepCallGraph) {
+            callGraph = null;
+        }
+    }
+
+    private void indexReferences() {
+        if (referencesByMethod != null) {
+            return;
+        }
+
+        methodReferences = new HashMap<>();
+        fieldReferences = new HashMap<>();
+        referencesByMethod = new IdentityHashMap<>();
+
+        for (ClassNode clazz : classes) {
+            for (MethodNode method : clazz.methods) {
+                this.index(method);
+            }
+        }
+    }
+
+    private void index(MethodNode method) {
+        List<AbstractInsnNode> references = new ArrayList<>();
+
+        for (AbstractInsnNode insn : method.instructions) {
+            if (insn instanceof MethodInsnNode methodInsn) {
+                methodReferences.computeIfAbsent(methodInsn.name, k -> new LinkedHashSet<>()).add(methodInsn);
+                references.add(insn);
+            } else if (insn instanceof FieldInsnNode fieldInsn) {
+                fieldReferences.computeIfAbsent(fieldInsn.name, k -> new LinkedHashSet<>()).add(fieldInsn);
+                references.add(insn);
+            }
+        }
+
+        referencesByMethod.put(method, references);
+    }
+
+    private void unindex(MethodNode method) {
+        List<AbstractInsnNode> references = referencesByMethod.remove(method);
+        if (references == null) {
+            return;
+        }
+
+        for (AbstractInsnNode insn : references) {
+            Set<? extends AbstractInsnNode> indexed = null;
+
+            if (insn instanceof MethodInsnNode methodInsn) {
+                indexed = methodReferences.get(methodInsn.name);
+            } else if (insn instanceof FieldInsnNode fieldInsn) {
+                indexed = fieldReferences.get(fieldInsn.name);
+            }
+
+            if (indexed != null) {
+                indexed.remove(insn);
+            }
+        }
+    }
+}
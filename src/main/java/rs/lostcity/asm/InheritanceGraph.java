@@ -0,0 +1,231 @@
+package rs.lostcity.asm;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The superclass and interface closure of a set of classes. Every class name seen,
+ * including ancestors outside the set, gets a dense id, and the ancestors of each
+ * class (itself included) are a bitset built once from those of its parents.
+ * <p>
+ * Members are linked with a union-find over their {@code owner.name desc} keys: a
+ * field or method is linked to the same member as seen through every subclass, so
+ * renaming a whole group keeps overrides, and references made through a subclass,
+ * pointing at the same thing.
+ */
+public class InheritanceGraph {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<ClassNode> classes = new ArrayList<>();
+    private final List<int[]> parents = new ArrayList<>();
+    private final List<BitSet> ancestors = new ArrayList<>();
+
+    public InheritanceGraph(Collection<ClassNode> classes) {
+        for (ClassNode clazz : classes) {
+            this.classes.set(this.id(clazz.name), clazz);
+        }
+
+        for (ClassNode clazz : classes) {
+            int[] parents = new int[(clazz.superName != null ? 1 : 0) + clazz.interfaces.size()];
+            int i = 0;
+
+            if (clazz.superName != null) {
+                parents[i++] = this.id(clazz.superName);
+            }
+
+            for (String iface : clazz.interfaces) {
+                parents[i++] = this.id(iface);
+            }
+
+            this.parents.set(ids.get(clazz.name), parents);
+        }
+
+        for (int id = 0; id < this.classes.size(); id++) {
+            this.computeAncestors(id);
+        }
+    }
+
+    private int id(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = classes.size();
+            ids.put(name, id);
+            classes.add(null);
+            parents.add(new int[0]);
+            ancestors.add(null);
+        }
+
+        return id;
+    }
+
+    private BitSet computeAncestors(int id) {
+        BitSet result = ancestors.get(id);
+        if (result != null) {
+            return result;
+        }
+
+        result = new BitSet();
+        result.set(id);
+
+        // set before recursing so a (malformed) cycle terminates
+        ancestors.set(id, result);
+
+        for (int parent : parents.get(id)) {
+            result.or(this.computeAncestors(parent));
+        }
+
+        return result;
+    }
+
+    /**
+     * Whether {@code name} is {@code ancestor} or inherits from it, directly or not.
+     */
+    public boolean isAncestor(String ancestor, String name) {
+        Integer ancestorId = ids.get(ancestor);
+        Integer id = ids.get(name);
+        return ancestorId != null && id != null && ancestors.get(id).get(ancestorId);
+    }
+
+    /**
+     * The classes in the graph that {@code clazz} is or inherits from.
+     */
+    public List<ClassNode> getAncestors(ClassNode clazz) {
+        List<ClassNode> result = new ArrayList<>();
+        BitSet bits = ancestors.get(ids.get(clazz.name));
+
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            ClassNode ancestor = classes.get(id);
+            if (ancestor != null) {
+                result.add(ancestor);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Links every non-private field to the same field as seen through each subclass.
+     * Keys are {@code owner.name:desc}.
+     */
+    public LinkedMembers linkFields() {
+        LinkedMembers linked = new LinkedMembers();
+
+        for (ClassNode clazz : classes) {
+            if (clazz == null) {
+                continue;
+            }
+
+            for (ClassNode ancestor : this.getAncestors(clazz)) {
+                for (FieldNode field : ancestor.fields) {
+                    if ((field.access & Opcodes.ACC_PRIVATE) == 0) {
+                        linked.link(ancestor.name + "." + field.name + ":" + field.desc, clazz.name + "." + field.name + ":" + field.desc);
+                    }
+                }
+            }
+        }
+
+        return linked.build();
+    }
+
+    /**
+     * Links every non-private method other than a constructor to the same method as
+     * seen through each subclass. Keys are {@code owner.namedesc}.
+     */
+    public LinkedMembers linkMethods() {
+        LinkedMembers linked = new LinkedMembers();
+
+        for (ClassNode clazz : classes) {
+            if (clazz == null) {
+                continue;
+            }
+
+            for (ClassNode ancestor : this.getAncestors(clazz)) {
+                for (MethodNode method : ancestor.methods) {
+                    if ((method.access & Opcodes.ACC_PRIVATE) == 0 && !method.name.equals("<init>")) {
+                        linked.link(ancestor.name + "." + method.name + method.desc, clazz.name + "." + method.name + method.desc);
+                    }
+                }
+            }
+        }
+
+        return linked.build();
+    }
+
+    public static class LinkedMembers {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> keys = new ArrayList<>();
+        private int[] pairs = new int[64];
+        private int pairCount;
+
+        private List<List<String>> groups;
+        private int[] groupOf;
+
+        private int id(String key) {
+            Integer id = ids.get(key);
+            if (id == null) {
+                id = keys.size();
+                ids.put(key, id);
+                keys.add(key);
+            }
+
+            return id;
+        }
+
+        private void link(String a, String b) {
+            if (a.equals(b)) {
+                this.id(a);
+                return;
+            }
+
+            if (pairCount + 2 > pairs.length) {
+                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+            }
+
+            pairs[pairCount++] = this.id(a);
+            pairs[pairCount++] = this.id(b);
+        }
+
+        private LinkedMembers build() {
+            UnionFind sets = new UnionFind(keys.size());
+
+            for (int i = 0; i < pairCount; i += 2) {
+                sets.union(pairs[i], pairs[i + 1]);
+            }
+
+            pairs = null;
+
+            Map<Integer, Integer> groupIds = new HashMap<>();
+            groups = new ArrayList<>();
+            groupOf = new int[keys.size()];
+
+            for (int id = 0; id < keys.size(); id++) {
+                int group = groupIds.computeIfAbsent(sets.find(id), k -> {
+                    groups.add(new ArrayList<>());
+                    return groups.size() - 1;
+                });
+
+                groups.get(group).add(keys.get(id));
+                groupOf[id] = group;
+            }
+
+            return this;
+        }
+
+        /**
+         * Every key linked to the given one, itself included.
+         */
+        public List<String> getLinked(String key) {
+            Integer id = ids.get(key);
+            return id != null ? groups.get(groupOf[id]) : List.of(key);
+        }
+    }
+}
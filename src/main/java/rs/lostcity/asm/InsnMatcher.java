@@ -29,17 +29,10 @@ public class InsnMatcher {
     }
 
     public List<List<AbstractInsnNode>> match(InsnList list) {
-        List<AbstractInsnNode> insns = new ArrayList<>(list.size());
-        StringBuilder builder = new StringBuilder(list.size());
+        InsnView view = InsnView.of(list);
+        List<AbstractInsnNode> insns = view.getInsns();
 
-        for (AbstractInsnNode insn : list) {
-            if (insn.getOpcode() != -1) {
-                insns.add(insn);
-                builder.append(opcodeToCodepoint(insn.getOpcode()));
-            }
-        }
-
-        Matcher matcher = this.pattern.matcher(builder);
+        Matcher matcher = this.pattern.matcher(view.getOpcodes());
         List<List<AbstractInsnNode>> matches = new ArrayList<>();
 
         while (matcher.find()) {
@@ -51,7 +44,7 @@ public class InsnMatcher {
 
     private static final int PRIVATE_USE_AREA = 0xE000;
 
-    private static char opcodeToCodepoint(int opcode) {
+    static char opcodeToCodepoint(int opcode) {
         return (char) (opcode + InsnMatcher.PRIVATE_USE_AREA);
     }
 
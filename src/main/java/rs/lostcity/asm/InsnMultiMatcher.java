@@ -0,0 +1,85 @@
+package rs.lostcity.asm;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matches several {@link InsnMatcher} patterns in a single scan over the instructions.
+ * Every pattern is tried at every position through a lookahead, so the matches found
+ * for each pattern are exactly those {@link InsnMatcher#match(InsnList)} would find,
+ * including matches that overlap those of another pattern.
+ */
+public class InsnMultiMatcher {
+    private final InsnMatcher[] matchers;
+    private final Pattern pattern;
+    private final int[] groups;
+
+    private InsnMultiMatcher(InsnMatcher[] matchers, Pattern pattern) {
+        this.matchers = matchers;
+        this.pattern = pattern;
+        this.groups = new int[matchers.length];
+
+        Map<String, Integer> names = pattern.namedGroups();
+        for (int i = 0; i < matchers.length; i++) {
+            groups[i] = names.get("m" + i);
+        }
+    }
+
+    public static InsnMultiMatcher of(InsnMatcher... matchers) {
+        StringBuilder pattern = new StringBuilder();
+
+        for (int i = 0; i < matchers.length; i++) {
+            pattern.append("(?=(?<m").append(i).append('>').append(matchers[i].getPattern()).append(")|)");
+        }
+
+        return new InsnMultiMatcher(matchers.clone(), Pattern.compile(pattern.toString()));
+    }
+
+    public Map<InsnMatcher, List<List<AbstractInsnNode>>> match(MethodNode method) {
+        return this.match(method.instructions);
+    }
+
+    public Map<InsnMatcher, List<List<AbstractInsnNode>>> match(InsnList list) {
+        InsnView view = InsnView.of(list);
+        List<AbstractInsnNode> insns = view.getInsns();
+
+        List<List<List<AbstractInsnNode>>> matches = new ArrayList<>(matchers.length);
+        int[] next = new int[matchers.length];
+
+        for (int i = 0; i < matchers.length; i++) {
+            matches.add(new ArrayList<>());
+        }
+
+        // every find is an empty match, so this visits each position in turn
+        Matcher matcher = this.pattern.matcher(view.getOpcodes());
+        while (matcher.find()) {
+            int position = matcher.start();
+
+            for (int i = 0; i < matchers.length; i++) {
+                int group = groups[i];
+                if (position < next[i] || matcher.start(group) == -1) {
+                    continue;
+                }
+
+                int end = matcher.end(group);
+                matches.get(i).add(insns.subList(position, end));
+                next[i] = end > position ? end : position + 1;
+            }
+        }
+
+        Map<InsnMatcher, List<List<AbstractInsnNode>>> result = new HashMap<>();
+        for (int i = 0; i < matchers.length; i++) {
+            result.put(matchers[i], matches.get(i));
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,80 @@
+package rs.lostcity.asm;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The real (non-pseudo) instructions of an {@link InsnList}, with their opcodes encoded
+ * as a string for {@link InsnMatcher}. Views are cached per list and checked against it
+ * on every use, as instructions can be inserted, removed, replaced or have their opcode
+ * changed without the list telling anyone. The check walks the list but allocates
+ * nothing, so only a list that has actually been modified is re-encoded.
+ */
+public class InsnView {
+    private static final Map<InsnList, InsnView> CACHE = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final AbstractInsnNode[] all;
+    private final List<AbstractInsnNode> insns;
+    private final String opcodes;
+
+    private InsnView(InsnList list) {
+        this.all = list.toArray();
+
+        List<AbstractInsnNode> insns = new ArrayList<>(all.length);
+        StringBuilder builder = new StringBuilder(all.length);
+
+        for (AbstractInsnNode insn : all) {
+            if (insn.getOpcode() != -1) {
+                insns.add(insn);
+                builder.append(InsnMatcher.opcodeToCodepoint(insn.getOpcode()));
+            }
+        }
+
+        this.insns = Collections.unmodifiableList(insns);
+        this.opcodes = builder.toString();
+    }
+
+    public static InsnView of(InsnList list) {
+        InsnView view = CACHE.get(list);
+        if (view == null || !view.isValid(list)) {
+            view = new InsnView(list);
+            CACHE.put(list, view);
+        }
+
+        return view;
+    }
+
+    private boolean isValid(InsnList list) {
+        if (list.size() != all.length) {
+            return false;
+        }
+
+        int i = 0;
+        int j = 0;
+        for (AbstractInsnNode insn = list.getFirst(); insn != null; insn = insn.getNext(), i++) {
+            if (insn != all[i]) {
+                return false;
+            }
+
+            if (insn.getOpcode() != -1 && opcodes.charAt(j++) != InsnMatcher.opcodeToCodepoint(insn.getOpcode())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public List<AbstractInsnNode> getInsns() {
+        return insns;
+    }
+
+    public String getOpcodes() {
+        return opcodes;
+    }
+}
@@ -0,0 +1,199 @@
+package rs.lostcity.asm;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FrameNode;
+import org.objectweb.asm.tree.IincInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.LookupSwitchInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.MultiANewArrayInsnNode;
+import org.objectweb.asm.tree.TableSwitchInsnNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A structural fingerprint of a method's code and descriptor, for finding copies of
+ * a method. Int constants pushed by bipush, sipush or ldc are all treated as the same
+ * constant, as the obfuscator varies them between copies. The element type of a
+ * newarray is ignored, as it always was when copies were matched. Jumps and switches
+ * are compared by their offset in the instruction list, so label identity doesn't
+ * matter. Frames and line numbers are skipped, although they still count towards
+ * offsets.
+ * <p>
+ * {@link #hash(MethodNode)} streams over the instructions without building anything;
+ * methods with the same hash should still be checked with {@link #equals}.
+ */
+public class MethodFingerprint {
+    private static final int INT_CONSTANT = -2;
+    private static final int LABEL = -3;
+
+    public static long hash(MethodNode method) {
+        InsnList insns = method.instructions;
+        long hash = method.desc.hashCode();
+
+        for (AbstractInsnNode insn : insns) {
+            if (insn instanceof FrameNode || insn instanceof LineNumberNode) {
+                continue;
+            }
+
+            hash = mix(hash, normalizedOpcode(insn));
+
+            switch (insn) {
+                case VarInsnNode varInsn -> hash = mix(hash, varInsn.var);
+                case IincInsnNode iinc -> hash = mix(mix(hash, iinc.var), iinc.incr);
+                case TypeInsnNode typeInsn -> hash = mix(hash, typeInsn.desc.hashCode());
+                case FieldInsnNode fieldInsn -> hash = mix(mix(mix(hash, fieldInsn.owner.hashCode()), fieldInsn.name.hashCode()), fieldInsn.desc.hashCode());
+                case MethodInsnNode methodInsn -> hash = mix(mix(mix(hash, methodInsn.owner.hashCode()), methodInsn.name.hashCode()), methodInsn.desc.hashCode());
+                case InvokeDynamicInsnNode indy -> hash = mix(mix(mix(mix(hash, indy.name.hashCode()), indy.desc.hashCode()), indy.bsm.hashCode()), Arrays.hashCode(indy.bsmArgs));
+                case LdcInsnNode ldc when !(ldc.cst instanceof Integer) -> hash = mix(hash, constantHash(ldc.cst));
+                case JumpInsnNode jump -> hash = mix(hash, offset(insns, jump, jump.label));
+                case TableSwitchInsnNode table -> {
+                    hash = mix(mix(mix(hash, table.min), table.max), offset(insns, table, table.dflt));
+                    for (LabelNode label : table.labels) {
+                        hash = mix(hash, offset(insns, table, label));
+                    }
+                }
+                case LookupSwitchInsnNode lookup -> {
+                    hash = mix(hash, offset(insns, lookup, lookup.dflt));
+                    for (int i = 0; i < lookup.keys.size(); i++) {
+                        hash = mix(mix(hash, lookup.keys.get(i)), offset(insns, lookup, lookup.labels.get(i)));
+                    }
+                }
+                case MultiANewArrayInsnNode multi -> hash = mix(mix(hash, multi.desc.hashCode()), multi.dims);
+                default -> {
+                }
+            }
+        }
+
+        return finish(hash);
+    }
+
+    /**
+     * Whether two methods have the same fingerprint, compared exactly.
+     */
+    public static boolean equals(MethodNode a, MethodNode b) {
+        if (!a.desc.equals(b.desc)) {
+            return false;
+        }
+
+        AbstractInsnNode x = next(a.instructions.getFirst());
+        AbstractInsnNode y = next(b.instructions.getFirst());
+
+        while (x != null && y != null) {
+            if (normalizedOpcode(x) != normalizedOpcode(y) || !operandsEqual(a.instructions, x, b.instructions, y)) {
+                return false;
+            }
+
+            x = next(x.getNext());
+            y = next(y.getNext());
+        }
+
+        return x == null && y == null;
+    }
+
+    private static AbstractInsnNode next(AbstractInsnNode insn) {
+        while (insn instanceof FrameNode || insn instanceof LineNumberNode) {
+            insn = insn.getNext();
+        }
+
+        return insn;
+    }
+
+    private static int normalizedOpcode(AbstractInsnNode insn) {
+        return switch (insn.getOpcode()) {
+            case Opcodes.BIPUSH, Opcodes.SIPUSH -> INT_CONSTANT;
+            case Opcodes.LDC -> ((LdcInsnNode) insn).cst instanceof Integer ? INT_CONSTANT : Opcodes.LDC;
+            case -1 -> insn instanceof LabelNode ? LABEL : -1;
+            default -> insn.getOpcode();
+        };
+    }
+
+    private static boolean operandsEqual(InsnList xs, AbstractInsnNode x, InsnList ys, AbstractInsnNode y) {
+        return switch (x) {
+            case VarInsnNode varInsn -> varInsn.var == ((VarInsnNode) y).var;
+            case IincInsnNode iinc -> iinc.var == ((IincInsnNode) y).var && iinc.incr == ((IincInsnNode) y).incr;
+            case TypeInsnNode typeInsn -> typeInsn.desc.equals(((TypeInsnNode) y).desc);
+            case FieldInsnNode fieldInsn -> {
+                FieldInsnNode other = (FieldInsnNode) y;
+                yield fieldInsn.owner.equals(other.owner) && fieldInsn.name.equals(other.name) && fieldInsn.desc.equals(other.desc);
+            }
+            case MethodInsnNode methodInsn -> {
+                MethodInsnNode other = (MethodInsnNode) y;
+                yield methodInsn.owner.equals(other.owner) && methodInsn.name.equals(other.name) && methodInsn.desc.equals(other.desc);
+            }
+            case InvokeDynamicInsnNode indy -> {
+                InvokeDynamicInsnNode other = (InvokeDynamicInsnNode) y;
+                yield indy.name.equals(other.name) && indy.desc.equals(other.desc) && indy.bsm.equals(other.bsm) && Arrays.equals(indy.bsmArgs, other.bsmArgs);
+            }
+            case LdcInsnNode ldc when !(ldc.cst instanceof Integer) -> Objects.equals(ldc.cst, ((LdcInsnNode) y).cst);
+            case JumpInsnNode jump -> offset(xs, jump, jump.label) == offset(ys, y, ((JumpInsnNode) y).label);
+            case TableSwitchInsnNode table -> {
+                TableSwitchInsnNode other = (TableSwitchInsnNode) y;
+                if (table.min != other.min || table.max != other.max || table.labels.size() != other.labels.size() || offset(xs, table, table.dflt) != offset(ys, other, other.dflt)) {
+                    yield false;
+                }
+
+                for (int i = 0; i < table.labels.size(); i++) {
+                    if (offset(xs, table, table.labels.get(i)) != offset(ys, other, other.labels.get(i))) {
+                        yield false;
+                    }
+                }
+
+                yield true;
+            }
+            case LookupSwitchInsnNode lookup -> {
+                LookupSwitchInsnNode other = (LookupSwitchInsnNode) y;
+                if (!lookup.keys.equals(other.keys) || offset(xs, lookup, lookup.dflt) != offset(ys, other, other.dflt)) {
+                    yield false;
+                }
+
+                for (int i = 0; i < lookup.labels.size(); i++) {
+                    if (offset(xs, lookup, lookup.labels.get(i)) != offset(ys, other, other.labels.get(i))) {
+                        yield false;
+                    }
+                }
+
+                yield true;
+            }
+            case MultiANewArrayInsnNode multi -> multi.desc.equals(((MultiANewArrayInsnNode) y).desc) && multi.dims == ((MultiANewArrayInsnNode) y).dims;
+            default -> true;
+        };
+    }
+
+    // Long and Double fold their hash codes to 32 bits, which is needlessly lossy here
+    private static long constantHash(Object cst) {
+        return switch (cst) {
+            case Long value -> value;
+            case Double value -> Double.doubleToLongBits(value);
+            default -> cst.hashCode();
+        };
+    }
+
+    private static int offset(InsnList insns, AbstractInsnNode from, LabelNode to) {
+        return insns.indexOf(to) - insns.indexOf(from);
+    }
+
+    private static long mix(long hash, long value) {
+        return Long.rotateLeft(hash ^ value * 0x9e3779b97f4a7c15L, 31) * 0xbf58476d1ce4e5b9L;
+    }
+
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,55 @@
+package rs.lostcity.asm;
+
+/**
+ * Disjoint sets over the integers [0, size), with path halving and union by size.
+ */
+public class UnionFind {
+    private final int[] parents;
+    private final int[] sizes;
+
+    public UnionFind(int size) {
+        this.parents = new int[size];
+        this.sizes = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            parents[i] = i;
+            sizes[i] = 1;
+        }
+    }
+
+    public int size() {
+        return parents.length;
+    }
+
+    public int find(int x) {
+        while (parents[x] != x) {
+            parents[x] = parents[parents[x]];
+            x = parents[x];
+        }
+
+        return x;
+    }
+
+    public boolean union(int a, int b) {
+        a = find(a);
+        b = find(b);
+
+        if (a == b) {
+            return false;
+        }
+
+        if (sizes[a] < sizes[b]) {
+            int tmp = a;
+            a = b;
+            b = tmp;
+        }
+
+        parents[b] = a;
+        sizes[a] += sizes[b];
+        return true;
+    }
+
+    public boolean connected(int a, int b) {
+        return find(a) == find(b);
+    }
+}
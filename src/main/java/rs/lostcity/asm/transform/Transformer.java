@@ -1,16 +1,29 @@
 package rs.lostcity.asm.transform;
 
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.FieldNode;
 import org.objectweb.asm.tree.MethodNode;
+import rs.lostcity.asm.ClassPool;
 import rs.lostcity.asm.InsnNodeUtil;
 import org.tomlj.TomlParseResult;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 public class Transformer {
     protected TomlParseResult profile;
 
+    private ClassPool classPool;
+    private ForkJoinPool pool;
+    private int passes;
+    private int changes;
+    private Set<ClassNode> dirtyClasses;
+    private Set<MethodNode> dirtyMethods;
+
     public void provide(TomlParseResult profile) {
         this.profile = profile;
     }
@@ -19,39 +32,256 @@ public class Transformer {
         return this.getClass().getSimpleName().replace("Transformer", "");
     }
 
+    /**
+     * Whether transformMethod, transformCode and postTransformMethod only read and
+     * modify the method they are given (and do not touch any transformer state
+     * that isn't thread-safe). Method-local transformers can have their methods
+     * processed concurrently by {@link #transform(List, ForkJoinPool)}.
+     */
+    public boolean isMethodLocal() {
+        return false;
+    }
+
+    /**
+     * Whether a pass only has to revisit the classes and methods that changed in
+     * the previous pass, plus anything passed to {@link #markDirty}. This holds for
+     * method-local transformers; interprocedural ones can opt in by overriding this
+     * and marking the call graph neighbours their changes affect.
+     */
+    public boolean isIncremental() {
+        return this.isMethodLocal();
+    }
+
+    /**
+     * Whether the transformer can run as a {@link ClassVisitor} adapter, see
+     * {@link #createVisitor}. Consecutive streamable transformers are fused into a
+     * single pass over the classes, or over the jar if nothing else needs the trees.
+     */
+    public boolean isStreamable() {
+        return false;
+    }
+
+    /**
+     * Wraps a visitor so that each class passing through it is transformed the same
+     * way a single pass of {@link #transform} would. Only the class being visited may
+     * be looked at. preTransform and postTransform are still called around the
+     * stream, but in a streamed run they are only given the classes the transformers
+     * add to the program themselves.
+     */
+    public ClassVisitor createVisitor(ClassVisitor next) {
+        throw new UnsupportedOperationException(this.getName() + " is not streamable");
+    }
+
+    /**
+     * Whether the transformer leaves the call graph as it was: it adds, removes and
+     * renames no class or method and moves no method other than through the pool,
+     * changes no superclass, interface or static or private flag, and adds or removes
+     * no invoke. A shared pool keeps its call graph for the transformers after it.
+     */
+    public boolean preservesCalls() {
+        return false;
+    }
+
+    /**
+     * Whether the transformer leaves the class hierarchy as it was: it adds, removes
+     * and renames no class other than through the pool, and changes no superclass or
+     * interface. A shared pool keeps its inheritance graph for the transformers after
+     * it. Holds for every transformer that preserves the calls.
+     */
+    public boolean preservesHierarchy() {
+        return this.preservesCalls();
+    }
+
+    /**
+     * The number of fixpoint passes the last run took, or 0 if the transformer
+     * overrides {@link #transform(List, ForkJoinPool)} and runs once on its own terms.
+     */
+    public int getPasses() {
+        return passes;
+    }
+
+    public int getChanges() {
+        return changes;
+    }
+
+    /**
+     * The pool the current {@link #transform(List, ForkJoinPool)} runs with, if any,
+     * for transformers that parallelize work of their own.
+     */
+    protected ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * The index over the given classes: the pool this transformer was run with if it
+     * covers them, otherwise a new one.
+     */
+    protected ClassPool getClassPool(List<ClassNode> classes) {
+        if (this.classPool == null || this.classPool.getClasses() != classes) {
+            this.classPool = new ClassPool(classes);
+        }
+
+        return this.classPool;
+    }
+
     public void transform(List<ClassNode> classes) {
+        this.transform(classes, null);
+    }
+
+    /**
+     * Runs the transformer over the classes of a pool shared between transformers.
+     * Other transformers edit code without going through the pool, so its indexes
+     * are dropped afterwards and rebuilt by whichever transformer next needs them,
+     * except for the graphs {@link #preservesHierarchy} and {@link #preservesCalls}
+     * say are still valid.
+     */
+    public void transform(ClassPool classPool, ForkJoinPool pool) {
+        this.classPool = classPool;
+
+        // transformers that replace the fixpoint leave these at 0
+        this.passes = 0;
+        this.changes = 0;
+
+        try {
+            this.transform(classPool.getClasses(), pool);
+        } finally {
+            classPool.invalidate(this.preservesHierarchy(), this.preservesCalls());
+            this.classPool = null;
+        }
+    }
+
+    /**
+     * Runs the transformer to a fixpoint. For method-local transformers the
+     * per-method hooks of each pass are fanned out over the given pool, if any.
+     * Class and field hooks still run serially: every class sees transformClass
+     * before any of its methods are visited and postTransformClass after all of
+     * them are done.
+     */
+    public void transform(List<ClassNode> classes, ForkJoinPool pool) {
+        boolean parallel = pool != null && this.isMethodLocal();
+
+        this.pool = pool;
+        this.passes = 0;
+        this.changes = 0;
+        this.dirtyClasses = null;
+        this.dirtyMethods = null;
+
         this.preTransform(classes);
 
         boolean changed;
         do {
-            changed = this.prePass(classes);
+            // null means the whole program is visited
+            Set<ClassNode> classesToVisit = this.dirtyClasses;
+            Set<MethodNode> methodsToVisit = this.dirtyMethods;
+            this.dirtyClasses = ConcurrentHashMap.newKeySet();
+            this.dirtyMethods = ConcurrentHashMap.newKeySet();
+            this.passes++;
+
+            boolean global = this.count(this.prePass(classes));
+
+            List<MethodRef> methods = new ArrayList<>();
 
             for (ClassNode clazz : classes) {
-                changed |= this.transformClass(classes, clazz);
+                boolean visitClass = classesToVisit == null || classesToVisit.contains(clazz);
+
+                if (visitClass) {
+                    boolean classChanged = this.count(this.transformClass(classes, clazz));
 
-                for (FieldNode field : clazz.fields) {
-                    changed |= this.transformField(classes, clazz, field);
+                    for (FieldNode field : clazz.fields) {
+                        classChanged |= this.count(this.transformField(classes, clazz, field));
+                    }
+
+                    if (classChanged) {
+                        this.markDirty(clazz);
+                    }
                 }
 
                 for (MethodNode method : clazz.methods) {
-                    changed |= this.transformMethod(classes, clazz, method);
-
-                    if (InsnNodeUtil.hasCode(method)) {
-                        changed |= this.transformCode(classes, clazz, method);
+                    if (methodsToVisit == null || methodsToVisit.contains(method)) {
+                        if (parallel) {
+                            methods.add(new MethodRef(clazz, method));
+                        } else {
+                            this.visitMethod(classes, clazz, method);
+                        }
                     }
+                }
 
-                    changed |= this.postTransformMethod(classes, clazz, method);
+                if (!parallel && visitClass && this.count(this.postTransformClass(classes, clazz))) {
+                    this.markDirty(clazz);
                 }
+            }
 
-                changed |= this.postTransformClass(classes, clazz);
+            if (parallel) {
+                pool.submit(() -> methods.parallelStream().forEach(ref -> this.visitMethod(classes, ref.clazz(), ref.method()))).join();
+
+                for (ClassNode clazz : classes) {
+                    if ((classesToVisit == null || classesToVisit.contains(clazz)) && this.count(this.postTransformClass(classes, clazz))) {
+                        this.markDirty(clazz);
+                    }
+                }
             }
 
-            changed |= this.postPass(classes);
+            global |= this.count(this.postPass(classes));
+
+            changed = global || !this.dirtyClasses.isEmpty();
+
+            if (global || !this.isIncremental()) {
+                this.dirtyClasses = null;
+                this.dirtyMethods = null;
+            }
         } while (changed);
 
+        this.dirtyClasses = null;
+        this.dirtyMethods = null;
+
         this.postTransform(classes);
     }
 
+    /**
+     * Schedules a whole class (its class and field hooks and all of its methods)
+     * to be revisited in the next pass.
+     */
+    protected void markDirty(ClassNode clazz) {
+        if (this.dirtyClasses != null) {
+            this.dirtyClasses.add(clazz);
+            this.dirtyMethods.addAll(clazz.methods);
+        }
+    }
+
+    /**
+     * Schedules a single method to be revisited in the next pass.
+     */
+    protected void markDirty(ClassNode clazz, MethodNode method) {
+        if (this.dirtyClasses != null) {
+            this.dirtyClasses.add(clazz);
+            this.dirtyMethods.add(method);
+        }
+    }
+
+    private void visitMethod(List<ClassNode> classes, ClassNode clazz, MethodNode method) {
+        boolean changed = this.count(this.transformMethod(classes, clazz, method));
+
+        if (InsnNodeUtil.hasCode(method)) {
+            changed |= this.count(this.transformCode(classes, clazz, method));
+        }
+
+        changed |= this.count(this.postTransformMethod(classes, clazz, method));
+
+        if (changed) {
+            this.markDirty(clazz, method);
+        }
+    }
+
+    private boolean count(boolean changed) {
+        if (changed) {
+            synchronized (this) {
+                this.changes++;
+            }
+        }
+
+        return changed;
+    }
+
     public void preTransform(List<ClassNode> classes) {
     }
 
@@ -89,4 +319,7 @@ public class Transformer {
 
     public void postTransform(List<ClassNode> classes) {
     }
+
+    private record MethodRef(ClassNode clazz, MethodNode method) {
+    }
 }
@@ -3,6 +3,7 @@ package rs.lostcity.decompiler;
 import org.jetbrains.java.decompiler.main.Fernflower;
 import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
 import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.tree.ClassNode;
@@ -10,32 +11,57 @@ import org.tomlj.TomlParseResult;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
 import java.util.jar.Manifest;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 public class Decompiler implements IBytecodeProvider, IResultSaver {
 
     private final TomlParseResult profile;
     private final String output;
-    private final Fernflower engine;
+    private final Map<String, Object> options = new HashMap<>();
     private final HashMap<String, byte[]> classes = new HashMap<>();
+    private final HashMap<String, ClassNode> nodes = new HashMap<>();
+
+    // outer class name -> cache key of the source that is being decompiled for it
+    private final Path cache;
+    private final Map<String, String> cacheKeys = new HashMap<>();
+    private final Map<String, Path> cachedSources = new LinkedHashMap<>();
+    // class groups that still have to be decompiled
+    private final List<List<String>> pending = new ArrayList<>();
+
+    private BiConsumer<String, String> consumer;
+
+    private static String decompilerHash;
 
     public Decompiler(TomlParseResult profile, String output, List<ClassNode> classNodes) {
         this.profile = profile;
         this.output = output;
-        this.engine = new Fernflower(this, this, null, new PrintStreamLogger(System.out));
+
+        String cacheDir = profile.getString("profile.source.cache");
+        this.cache = cacheDir != null ? Paths.get(cacheDir) : null;
 
         for (ClassNode clazz : classNodes) {
             ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
             clazz.accept(writer);
             classes.put(clazz.name, writer.toByteArray());
-            engine.addSource(new File(clazz.name + ".class"));
+            nodes.put(clazz.name, clazz);
         }
 
         try {
@@ -54,20 +80,278 @@ public class Decompiler implements IBytecodeProvider, IResultSaver {
 
         try {
             Files.createDirectories(Paths.get(output));
+
+            if (cache != null) {
+                Files.createDirectories(cache);
+            }
         } catch (IOException ex) {
             ex.printStackTrace();
         }
+
+        for (Map.Entry<String, List<String>> group : groupByOuterClass(classNodes).entrySet()) {
+            String outer = group.getKey();
+
+            if (cache != null) {
+                String key = computeCacheKey(group.getValue());
+                Path source = cache.resolve(key + ".java");
+
+                if (Files.exists(source)) {
+                    cachedSources.put(outer, source);
+                    continue;
+                }
+
+                cacheKeys.put(outer, key);
+            }
+
+            pending.add(group.getValue());
+        }
+
+        if (cache != null) {
+            System.out.println("Reusing " + cachedSources.size() + " cached sources");
+        }
+    }
+
+    /**
+     * Hands every source (qualified name, content) to the consumer instead of writing
+     * it to the output directory. The consumer is called from the decompiler threads.
+     */
+    public void setSourceConsumer(BiConsumer<String, String> consumer) {
+        this.consumer = consumer;
     }
 
     public void run() {
+        System.out.println("---- Decompiling ----");
+
+        for (Map.Entry<String, Path> entry : cachedSources.entrySet()) {
+            try {
+                emitSource(entry.getKey(), Files.readString(entry.getValue()));
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
+
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Long threads = profile.getLong("profile.source.threads");
+        List<List<String>> shards = partition(threads != null ? threads.intValue() : 1);
+
+        if (shards.size() == 1) {
+            decompile(shards.getFirst());
+            return;
+        }
+
+        System.out.println("Decompiling in " + shards.size() + " shards");
+
+        ExecutorService executor = Executors.newFixedThreadPool(shards.size());
         try {
-            System.out.println("---- Decompiling ----");
-            this.engine.decompileContext();
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (List<String> shard : shards) {
+                futures.add(executor.submit(() -> decompile(shard)));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException | ExecutionException ex) {
+            ex.printStackTrace();
         } finally {
-            this.engine.clearContext();
+            executor.shutdown();
         }
     }
 
+    /**
+     * Runs one Fernflower engine over a shard. Every other class is added as a
+     * library, so the engine has the same context it would have over the whole
+     * program. Engines keep their state per thread, so shards can run concurrently.
+     */
+    private void decompile(List<String> shard) {
+        Fernflower engine = new Fernflower(this, this, options, new PrintStreamLogger(System.out));
+        Set<String> sources = new HashSet<>(shard);
+
+        try {
+            for (String name : shard) {
+                engine.addSource(new File(name + ".class"));
+            }
+
+            for (String name : classes.keySet()) {
+                if (!sources.contains(name)) {
+                    engine.addLibrary(new File(name + ".class"));
+                }
+            }
+
+            engine.decompileContext();
+        } finally {
+            engine.clearContext();
+        }
+    }
+
+    /**
+     * Splits the pending class groups into at most the given number of shards of
+     * roughly equal bytecode size, keeping each outer class with its inner classes.
+     */
+    private List<List<String>> partition(int count) {
+        List<List<String>> groups = new ArrayList<>(pending);
+        groups.sort(Comparator.comparingLong(this::size).reversed());
+
+        count = Math.max(1, Math.min(count, groups.size()));
+
+        List<List<String>> shards = new ArrayList<>();
+        long[] sizes = new long[count];
+
+        for (int i = 0; i < count; i++) {
+            shards.add(new ArrayList<>());
+        }
+
+        for (List<String> group : groups) {
+            int smallest = 0;
+
+            for (int i = 1; i < count; i++) {
+                if (sizes[i] < sizes[smallest]) {
+                    smallest = i;
+                }
+            }
+
+            shards.get(smallest).addAll(group);
+            sizes[smallest] += size(group);
+        }
+
+        return shards;
+    }
+
+    private long size(List<String> group) {
+        long size = 0;
+
+        for (String name : group) {
+            size += classes.get(name).length;
+        }
+
+        return size;
+    }
+
+    /**
+     * Fernflower emits inner classes as part of their outer class' source, so they
+     * have to be decompiled (and cached) together with it.
+     */
+    private Map<String, List<String>> groupByOuterClass(List<ClassNode> classNodes) {
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+
+        for (ClassNode clazz : classNodes) {
+            String outer = clazz.name;
+
+            int index = outer.indexOf('$');
+            while (index != -1) {
+                if (classes.containsKey(outer.substring(0, index))) {
+                    outer = outer.substring(0, index);
+                    break;
+                }
+
+                index = outer.indexOf('$', index + 1);
+            }
+
+            groups.computeIfAbsent(outer, k -> new ArrayList<>()).add(clazz.name);
+        }
+
+        return groups;
+    }
+
+    /**
+     * Hashes everything the decompiled source of a class group depends on: the
+     * decompiler and its options, the bytecode of the group and the bytecode of
+     * every supertype in the program.
+     */
+    private String computeCacheKey(List<String> group) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        // the options Fernflower runs with are its defaults overridden by ours
+        Map<String, Object> effectiveOptions = new TreeMap<>(IFernflowerPreferences.getDefaults());
+        effectiveOptions.putAll(options);
+
+        digest.update(decompilerHash().getBytes(StandardCharsets.UTF_8));
+        digest.update(effectiveOptions.toString().getBytes(StandardCharsets.UTF_8));
+
+        Set<String> visited = new TreeSet<>();
+        ArrayDeque<String> queue = new ArrayDeque<>(group);
+
+        while (!queue.isEmpty()) {
+            String name = queue.removeFirst();
+
+            ClassNode clazz = nodes.get(name);
+            if (clazz == null || !visited.add(name)) {
+                continue;
+            }
+
+            if (clazz.superName != null) {
+                queue.add(clazz.superName);
+            }
+
+            queue.addAll(clazz.interfaces);
+        }
+
+        for (String name : visited) {
+            byte[] bytes = classes.get(name);
+            digest.update(name.getBytes(StandardCharsets.UTF_8));
+            digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+            digest.update(bytes);
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Identifies the decompiler build by the names and CRCs of its classes in the jar it
+     * was loaded from. The package version is unset once the decompiler is shaded into
+     * our jar, and hashing the whole jar would drop the cache on every rebuild. A decompiler
+     * that isn't loaded from a jar falls back to its package version, so clear the cache
+     * by hand after changing one built from source.
+     */
+    private static synchronized String decompilerHash() {
+        if (decompilerHash != null) {
+            return decompilerHash;
+        }
+
+        try {
+            Path location = Paths.get(Fernflower.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+            if (Files.isRegularFile(location)) {
+                try (ZipFile zip = new ZipFile(location.toFile())) {
+                    StringBuilder builder = new StringBuilder();
+
+                    zip.stream()
+                        .filter(entry -> entry.getName().startsWith("org/jetbrains/java/decompiler/"))
+                        .sorted(Comparator.comparing(ZipEntry::getName))
+                        .forEach(entry -> builder.append(entry.getName()).append(':').append(entry.getCrc()).append('\n'));
+
+                    decompilerHash = builder.toString();
+                    return decompilerHash;
+                }
+            }
+        } catch (IOException | URISyntaxException | SecurityException ex) {
+            ex.printStackTrace();
+        }
+
+        decompilerHash = "unpackaged " + Fernflower.class.getPackage().getImplementationVersion();
+        return decompilerHash;
+    }
+
+    private void emitSource(String qualifiedName, String content) throws IOException {
+        if (consumer != null) {
+            consumer.accept(qualifiedName, content);
+            return;
+        }
+
+        Path path = Paths.get(output, qualifiedName + ".java");
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, content);
+    }
+
     @Override
     public byte[] getBytecode(String externalPath, String internalPath) throws IOException {
         String workingDir = System.getProperty("user.dir");
@@ -86,15 +370,15 @@ public class Decompiler implements IBytecodeProvider, IResultSaver {
     @Override
     public void saveClassFile(String path, String qualifiedName, String entryName, String content, int[] mapping) {
         try {
-            if (qualifiedName.contains("/")) {
-                String[] dirs = qualifiedName.split("/");
-                String dir = "";
-                for (int i = 0; i < dirs.length - 1; i++) {
-                    dir += dirs[i] + "/";
-                    Files.createDirectories(Paths.get(output, dir));
-                }
+            emitSource(qualifiedName, content);
+
+            String key = cacheKeys.get(qualifiedName);
+            if (key != null) {
+                // an interrupted run must not leave a truncated source behind to be reused
+                Path temp = Files.createTempFile(cache, key, ".tmp");
+                Files.writeString(temp, content);
+                Files.move(temp, cache.resolve(key + ".java"), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
             }
-            Files.write(Paths.get(output, qualifiedName + ".java"), content.getBytes("UTF-8"));
         } catch (IOException ex) {
             ex.printStackTrace();
         }
@@ -9,6 +9,7 @@ import org.tomlj.TomlParseResult;
 
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.zip.Deflater;
 
 public class Deobfuscator {
     public static void main(String[] args) {
@@ -33,6 +34,25 @@ public class Deobfuscator {
                 AstDeobfuscator ast = new AstDeobfuscator(profile);
                 ast.run(false);
             } else if (inputJar != null) {
+                // 0 stores the classes uncompressed
+                Long level = profile.getLong("profile.deob.compression");
+                if (level != null && (level < 0 || level > 9)) {
+                    System.err.println("profile.deob.compression must be between 0 and 9, not " + level);
+                    System.exit(1);
+                }
+
+                int compression = level != null ? level.intValue() : Deflater.DEFAULT_COMPRESSION;
+
+                if (Boolean.TRUE.equals(profile.getBoolean("profile.deob.enable")) && !Boolean.TRUE.equals(profile.getBoolean("profile.source.decompile"))) {
+                    BytecodeDeobfuscator bytecode = new BytecodeDeobfuscator(profile);
+
+                    if (bytecode.isStreamable()) {
+                        // nothing needs the trees, so the jar is copied through the transformers
+                        bytecode.run(Paths.get(inputJar), Paths.get(inputJar.replace(".jar", "-deob.jar")), compression);
+                        return;
+                    }
+                }
+
                 List<ClassNode> classes = JarUtil.readClasses(Paths.get(inputJar));
                 System.out.println("Loaded " + classes.size() + " classes");
 
@@ -43,14 +63,19 @@ public class Deobfuscator {
 
                 if (Boolean.TRUE.equals(profile.getBoolean("profile.source.decompile"))) {
                     Decompiler decompiler = new Decompiler(profile, "src/main/java", classes);
-                    decompiler.run();
 
                     if (Boolean.TRUE.equals(profile.getBoolean("profile.source.cleanup"))) {
+                        // parse sources as they are decompiled and only write them out after cleanup
                         AstDeobfuscator ast = new AstDeobfuscator(profile);
-                        ast.run(true);
+                        ast.startStream();
+                        decompiler.setSourceConsumer(ast::accept);
+                        decompiler.run();
+                        ast.finishStream();
+                    } else {
+                        decompiler.run();
                     }
                 } else {
-                    JarUtil.writeClasses(Paths.get(inputJar.replace(".jar", "-deob.jar")), classes);
+                    JarUtil.writeClasses(Paths.get(inputJar.replace(".jar", "-deob.jar")), classes, compression);
                 }
             }
         } catch (Exception ex) {
@@ -1,76 +1,155 @@
 package rs.lostcity.deob;
 
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.tree.ClassNode;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
 public class JarUtil {
     public static List<ClassNode> readClasses(Path path) throws IOException {
         var classes = new ArrayList<ClassNode>();
+        readClasses(path, classes);
+        return classes;
+    }
 
-        try (var zin = new ZipInputStream(Files.newInputStream(path))) {
-            while (true) {
-                var entry = zin.getNextEntry();
+    /*
+     * Entries are found through the central directory and then read and parsed in
+     * parallel, but are added in the order they appear in the jar.
+     */
+    public static void readClasses(Path path, List<ClassNode> classes) throws IOException {
+        classes.clear();
 
-                if (entry == null) {
-                    break;
-                }
+        try (var zip = new ZipFile(path.toFile())) {
+            var entries = zip.stream()
+                .filter(entry -> entry.getName().endsWith(".class"))
+                .toList();
 
-                var string = entry.getName();
+            classes.addAll(entries.parallelStream()
+                .map(entry -> readClass(zip, entry))
+                .toList());
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
 
-                if (string.endsWith(".class")) {
-                    var reader = new ClassReader(zin);
-                    var node = new ClassNode();
-                    reader.accept(node, ClassReader.SKIP_FRAMES);
-                    classes.add(node);
-                }
-            }
+    private static ClassNode readClass(ZipFile zip, ZipEntry entry) {
+        try (var in = zip.getInputStream(entry)) {
+            var reader = new ClassReader(in.readAllBytes());
+            var node = new ClassNode();
+            reader.accept(node, ClassReader.SKIP_FRAMES);
+            return node;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
+    }
 
-        return classes;
+    public static void writeClasses(Path path, List<ClassNode> classes) throws IOException {
+        writeClasses(path, classes, Deflater.DEFAULT_COMPRESSION);
     }
 
-    public static void readClasses(Path path, List<ClassNode> classes) throws IOException {
-        classes.clear();
+    /*
+     * Classes are serialized in parallel and written in order.
+     */
+    public static void writeClasses(Path path, List<ClassNode> classes, int level) throws IOException {
+        var data = classes.parallelStream()
+            .map(JarUtil::writeClass)
+            .toList();
 
-        try (var zin = new ZipInputStream(Files.newInputStream(path))) {
-            while (true) {
-                var entry = zin.getNextEntry();
+        writeEntries(path, classes.stream().map(clazz -> clazz.name + ".class").toList(), data, level);
+    }
 
-                if (entry == null) {
-                    break;
-                }
+    /*
+     * Copies the classes of one jar into another through a visitor adapter without
+     * building trees: each entry goes straight from a reader to a writer, in parallel,
+     * and is written in order. Extra classes are appended after the jar's own.
+     */
+    public static void transformClasses(Path in, Path out, UnaryOperator<ClassVisitor> adapter, List<ClassNode> extraClasses, int level) throws IOException {
+        var names = new ArrayList<String>();
+        var data = new ArrayList<byte[]>();
 
-                var string = entry.getName();
+        try (var zip = new ZipFile(in.toFile())) {
+            var entries = zip.stream()
+                .filter(entry -> entry.getName().endsWith(".class"))
+                .toList();
 
-                if (string.endsWith(".class")) {
-                    var reader = new ClassReader(zin);
-                    var node = new ClassNode();
-                    reader.accept(node, ClassReader.SKIP_FRAMES);
-                    classes.add(node);
-                }
+            var transformed = entries.parallelStream()
+                .map(entry -> transformClass(zip, entry, adapter))
+                .toList();
+
+            for (int i = 0; i < entries.size(); i++) {
+                names.add(entries.get(i).getName());
+                data.add(transformed.get(i));
             }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        for (var clazz : extraClasses) {
+            names.add(clazz.name + ".class");
+            data.add(writeClass(clazz));
         }
+
+        writeEntries(out, names, data, level);
     }
 
-    public static void writeClasses(Path path, List<ClassNode> classes) throws IOException {
-        try (var zout = new ZipOutputStream(Files.newOutputStream(path))) {
-            for (var clazz : classes) {
-                zout.putNextEntry(new ZipEntry(clazz.name + ".class"));
+    private static byte[] transformClass(ZipFile zip, ZipEntry entry, UnaryOperator<ClassVisitor> adapter) {
+        try (var in = zip.getInputStream(entry)) {
+            var reader = new ClassReader(in.readAllBytes());
+            var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+            reader.accept(adapter.apply(writer), ClassReader.SKIP_FRAMES);
+            return writer.toByteArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
 
-                var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS /*| ClassWriter.COMPUTE_FRAMES*/);
-                clazz.accept(writer);
-                zout.write(writer.toByteArray());
+    /*
+     * A compression level of 0 stores entries without deflating them, which is the
+     * fastest for intermediate jars.
+     */
+    private static void writeEntries(Path path, List<String> names, List<byte[]> data, int level) throws IOException {
+        try (var zout = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            if (level != 0) {
+                zout.setLevel(level);
+            }
+
+            for (int i = 0; i < names.size(); i++) {
+                var entry = new ZipEntry(names.get(i));
+                var bytes = data.get(i);
+
+                if (level == 0) {
+                    var crc = new CRC32();
+                    crc.update(bytes);
+
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(bytes.length);
+                    entry.setCompressedSize(bytes.length);
+                    entry.setCrc(crc.getValue());
+                }
+
+                zout.putNextEntry(entry);
+                zout.write(bytes);
             }
         }
     }
+
+    private static byte[] writeClass(ClassNode clazz) {
+        var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS /*| ClassWriter.COMPUTE_FRAMES*/);
+        clazz.accept(writer);
+        return writer.toByteArray();
+    }
 }
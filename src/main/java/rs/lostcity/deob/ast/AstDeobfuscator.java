@@ -1,28 +1,44 @@
 package rs.lostcity.deob.ast;
 
+import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.printer.DefaultPrettyPrinter;
 import com.github.javaparser.printer.configuration.*;
 import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
+import com.github.javaparser.resolution.TypeSolver;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.*;
 import com.github.javaparser.utils.SourceRoot;
 import rs.lostcity.deob.ast.transform.*;
+import rs.lostcity.deob.ast.util.CompilationUnitTypeSolver;
+import rs.lostcity.deob.ast.util.ThreadLocalSymbolResolver;
 import org.tomlj.TomlArray;
 import org.tomlj.TomlParseResult;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class AstDeobfuscator {
     private final TomlParseResult profile;
     private final Map<String, AstTransformer> allAstTransformers = new HashMap<>();
 
+    // sources handed over by the decompiler, by internal name
+    private final CompilationUnitTypeSolver streamSolver = new CompilationUnitTypeSolver();
+    private final Map<String, CompilationUnit> streamUnits = new ConcurrentSkipListMap<>();
+    private final Map<String, String> streamRawSources = new ConcurrentSkipListMap<>();
+    private ParserConfiguration streamConfig;
+
     public AstDeobfuscator(TomlParseResult profile) {
         this.profile = profile;
 
@@ -58,6 +74,101 @@ public class AstDeobfuscator {
     public void run(boolean save) {
         System.out.println("---- Processing source code ----");
 
+        var config = createConfiguration(() -> new JavaParserTypeSolver("src/main/java"));
+
+        SourceRoot root = new SourceRoot(Paths.get("src/main/java"), config);
+        root.setPrinter(createPrinter());
+
+        var results = root.tryToParseParallelized();
+        for (var result : results) {
+            if (!result.isSuccessful()) {
+                for (var problem : result.getProblems()) {
+                    System.err.println(problem.toString());
+                }
+            }
+        }
+
+        transform(root.getCompilationUnits());
+
+        if (save) {
+            root.saveAll();
+        }
+    }
+
+    /**
+     * Prepares for sources to be handed over in memory through {@link #accept},
+     * instead of being read back from src/main/java by {@link #run}.
+     */
+    public void startStream() {
+        this.streamConfig = createConfiguration(this.streamSolver::view);
+    }
+
+    /**
+     * Parses a decompiled source as soon as it is produced. Can be called concurrently.
+     */
+    public void accept(String qualifiedName, String content) {
+        var result = new JavaParser(this.streamConfig).parse(content);
+
+        if (!result.isSuccessful() || result.getResult().isEmpty()) {
+            for (var problem : result.getProblems()) {
+                System.err.println(problem.toString());
+            }
+
+            // written out as decompiled, like a file the parser can't read from disk
+            this.streamRawSources.put(qualifiedName, content);
+            return;
+        }
+
+        var unit = result.getResult().get();
+        this.streamSolver.add(qualifiedName.replace('/', '.'), unit);
+        this.streamUnits.put(qualifiedName, unit);
+    }
+
+    /**
+     * Runs the source transformers over the units passed to {@link #accept} and writes
+     * each of them to src/main/java once. Sources that failed to parse are written
+     * unchanged.
+     */
+    public void finishStream() {
+        System.out.println("---- Processing source code ----");
+
+        transform(new ArrayList<>(this.streamUnits.values()));
+
+        var printer = createPrinter();
+
+        this.streamUnits.entrySet().parallelStream().forEach(entry -> writeSource(entry.getKey(), printer.apply(entry.getValue())));
+        this.streamRawSources.entrySet().parallelStream().forEach(entry -> writeSource(entry.getKey(), entry.getValue()));
+    }
+
+    private static void writeSource(String qualifiedName, String content) {
+        try {
+            Path path = Paths.get("src/main/java", qualifiedName + ".java");
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, content);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private ParserConfiguration createConfiguration(Supplier<TypeSolver> sources) {
+		var config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_11);
+
+        if (isParallel()) {
+            // each transform thread resolves through its own solvers
+            config.setSymbolResolver(new ThreadLocalSymbolResolver(() -> new JavaSymbolSolver(createTypeSolver(sources.get()))));
+        } else {
+            config.setSymbolResolver(new JavaSymbolSolver(createTypeSolver(sources.get())));
+        }
+
+        if (Boolean.TRUE.equals(profile.getBoolean("profile.source.preserve_format"))) {
+            config.setLexicalPreservationEnabled(true);
+        }
+
+        return config;
+    }
+
+    private TypeSolver createTypeSolver(TypeSolver sources) {
         var solver = new CombinedTypeSolver();
         TomlArray classpath = this.profile.getArray("profile.source.classpath");
         if (classpath != null) {
@@ -72,58 +183,80 @@ public class AstDeobfuscator {
 
         solver.add(new ReflectionTypeSolver(false));
         solver.add(new ClassLoaderTypeSolver(ClassLoader.getPlatformClassLoader()));
-        solver.add(new JavaParserTypeSolver("src/main/java"));
+        solver.add(sources);
 
-		var config = new ParserConfiguration();
-        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_11);
-        config.setSymbolResolver(new JavaSymbolSolver(solver));
-
-        if (Boolean.TRUE.equals(profile.getBoolean("profile.source.preserve_format"))) {
-            config.setLexicalPreservationEnabled(true);
-        }
+        return solver;
+    }
 
-        SourceRoot root = new SourceRoot(Paths.get("src/main/java"), config);
+    private boolean isParallel() {
+        return Boolean.TRUE.equals(profile.getBoolean("profile.source.parallel"));
+    }
 
+    private Function<CompilationUnit, String> createPrinter() {
         if (Boolean.TRUE.equals(profile.getBoolean("profile.source.preserve_format"))) {
-            root.setPrinter(LexicalPreservingPrinter::print);
-        } else {
-            DefaultPrinterConfiguration prettyConfig = new DefaultPrinterConfiguration();
-            prettyConfig.addOption(new DefaultConfigurationOption(DefaultPrinterConfiguration.ConfigOption.INDENTATION, new Indentation(Indentation.IndentType.TABS_WITH_SPACE_ALIGN, 1)));
-            prettyConfig.addOption(new DefaultConfigurationOption(DefaultPrinterConfiguration.ConfigOption.INDENT_CASE_IN_SWITCH, false));
-            prettyConfig.addOption(new DefaultConfigurationOption(DefaultPrinterConfiguration.ConfigOption.ORDER_IMPORTS, true));
-
-            DefaultPrettyPrinter pretty = new DefaultPrettyPrinter(prettyConfig);
-            root.setPrinter(pretty::print);
+            return LexicalPreservingPrinter::print;
         }
 
-        var results = root.tryToParseParallelized();
-        for (var result : results) {
-            if (!result.isSuccessful()) {
-                for (var problem : result.getProblems()) {
-                    System.err.println(problem.toString());
-                }
-            }
-        }
+        DefaultPrinterConfiguration prettyConfig = new DefaultPrinterConfiguration();
+        prettyConfig.addOption(new DefaultConfigurationOption(DefaultPrinterConfiguration.ConfigOption.INDENTATION, new Indentation(Indentation.IndentType.TABS_WITH_SPACE_ALIGN, 1)));
+        prettyConfig.addOption(new DefaultConfigurationOption(DefaultPrinterConfiguration.ConfigOption.INDENT_CASE_IN_SWITCH, false));
+        prettyConfig.addOption(new DefaultConfigurationOption(DefaultPrinterConfiguration.ConfigOption.ORDER_IMPORTS, true));
 
+        DefaultPrettyPrinter pretty = new DefaultPrettyPrinter(prettyConfig);
+        return pretty::print;
+    }
+
+    private void transform(List<CompilationUnit> units) {
         TomlArray astTransformers = this.profile.getArray("profile.source.transformers");
         if (astTransformers != null) {
-            List<CompilationUnit> units = root.getCompilationUnits();
+            // unit-local transformers are fanned out per unit when enabled
+            ForkJoinPool pool = null;
+            if (isParallel()) {
+                Long threads = profile.getLong("profile.source.threads");
+                pool = new ForkJoinPool(threads != null ? threads.intValue() : Runtime.getRuntime().availableProcessors());
+            }
+
+            // consecutive fusible transformers share a single traversal per unit
+            boolean fuse = Boolean.TRUE.equals(profile.getBoolean("profile.source.fuse"));
+            List<AstTransformer> fused = new ArrayList<>();
 
             for (int i = 0; i < astTransformers.size(); i++) {
                 String name = astTransformers.getString(i);
 
                 AstTransformer transformer = this.allAstTransformers.get(name);
-                if (transformer != null) {
-                    System.out.println("Applying " + name + " source transformer");
-                    transformer.transform(units);
-                } else {
+                if (transformer == null) {
                     System.err.println("Unknown AST transformer: " + name);
+                    continue;
+                }
+
+                if (fuse && transformer.isFusible()) {
+                    fused.add(transformer);
+                    continue;
                 }
+
+                applyFused(fused, units, pool);
+
+                System.out.println("Applying " + name + " source transformer");
+                transformer.transform(units, pool);
+            }
+
+            applyFused(fused, units, pool);
+
+            if (pool != null) {
+                pool.shutdown();
             }
         }
+    }
 
-        if (save) {
-            root.saveAll();
+    private void applyFused(List<AstTransformer> fused, List<CompilationUnit> units, ForkJoinPool pool) {
+        if (fused.isEmpty()) {
+            return;
         }
+
+        AstTransformer transformer = fused.size() == 1 ? fused.getFirst() : new FusedTransformer(new ArrayList<>(fused));
+        System.out.println("Applying " + transformer.getName() + " source transformer" + (fused.size() == 1 ? "" : "s"));
+        transformer.transform(units, pool);
+
+        fused.clear();
     }
 }
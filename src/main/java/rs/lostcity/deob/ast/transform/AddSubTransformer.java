@@ -1,6 +1,5 @@
 package rs.lostcity.deob.ast.transform;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.*;
 import rs.lostcity.deob.ast.util.NodeUtil;
 
@@ -10,11 +9,15 @@ import java.util.List;
 import static rs.lostcity.deob.ast.util.ExprUtil.hasSideEffects;
 import static rs.lostcity.deob.ast.util.ExprUtil.negate;
 
-public class AddSubTransformer extends AstTransformer {
+public final class AddSubTransformer extends AstTransformer {
 
 	@Override
-	public void transformUnit(CompilationUnit unit) {
-		walk(unit, BinaryExpr.class, expr -> {
+	public boolean resolvesSymbols() {
+		return true;
+	}
+
+	public AddSubTransformer() {
+		handle(BinaryExpr.class, expr -> {
 			var op = expr.getOperator();
 			if (op != BinaryExpr.Operator.PLUS && op != BinaryExpr.Operator.MINUS) {
 				return;
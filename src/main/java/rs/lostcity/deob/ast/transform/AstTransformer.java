@@ -5,12 +5,16 @@ import com.github.javaparser.ast.Node;
 import rs.lostcity.deob.ast.util.NodeUtil;
 import org.tomlj.TomlParseResult;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 
 public class AstTransformer {
     protected TomlParseResult profile;
 
+    private final List<NodeHandler<?>> handlers = new ArrayList<>();
+
     public void provide(TomlParseResult profile) {
         this.profile = profile;
     }
@@ -29,16 +33,84 @@ public class AstTransformer {
         postTransform();
     }
 
+    /**
+     * Same as {@link #transform(List)}, but unit-local transformers have their units
+     * processed concurrently on the given pool.
+     */
+    public void transform(List<CompilationUnit> units, ForkJoinPool pool) {
+        if (pool == null || !isUnitLocal()) {
+            transform(units);
+            return;
+        }
+
+        preTransform();
+        pool.submit(() -> units.parallelStream().forEach(this::transformUnit)).join();
+        postTransform();
+    }
+
+    /**
+     * Whether transformUnit only reads and modifies the unit it is given, and any
+     * state it collects across units is thread-safe.
+     */
+    public boolean isUnitLocal() {
+        return isFusible() && !resolvesSymbols();
+    }
+
+    /**
+     * Whether the handlers resolve types or declarations. Resolving reads other units
+     * through the type solver, so these transformers are never run concurrently with
+     * changes to those units.
+     */
+    public boolean resolvesSymbols() {
+        return false;
+    }
+
     public void preTransform() {
     }
 
     public void transformUnit(CompilationUnit unit) {
+        for (NodeHandler<?> handler : handlers) {
+            walk(unit, handler);
+        }
     }
 
     public void postTransform() {
     }
 
+    /**
+     * Whether this transformer is made up only of node handlers, which only look at
+     * and modify the node they are given. Consecutive fusible transformers can be run
+     * together in a single traversal by {@link FusedTransformer}.
+     */
+    public boolean isFusible() {
+        return !handlers.isEmpty();
+    }
+
+    public List<NodeHandler<?>> getHandlers() {
+        return handlers;
+    }
+
+    /**
+     * Registers a handler for every node of the given type. Unless fused, each handler
+     * is a separate POSTORDER walk over the unit, in the order they were registered.
+     */
+    protected <T extends Node> void handle(Class<T> type, Consumer<T> consumer) {
+        handlers.add(new NodeHandler<>(type, consumer));
+    }
+
     protected static <T extends Node> void walk(CompilationUnit unit, Class<T> type, Consumer<T> consumer) {
         NodeUtil.walk(unit, type, consumer);
     }
+
+    private static <T extends Node> void walk(CompilationUnit unit, NodeHandler<T> handler) {
+        NodeUtil.walk(unit, handler.type(), handler.consumer());
+    }
+
+    public record NodeHandler<T extends Node>(Class<T> type, Consumer<T> consumer) {
+        public void accept(Node node) {
+            if (type.isInstance(node)) {
+                consumer.accept(type.cast(node));
+            }
+        }
+    }
 }
@@ -1,6 +1,5 @@
 package rs.lostcity.deob.ast.transform;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.BinaryExpr;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.LiteralExpr;
@@ -9,11 +8,15 @@ import rs.lostcity.deob.ast.util.NodeUtil;
 
 import static rs.lostcity.deob.ast.util.ExprUtil.flip;
 
-public class BinaryExprOrderTransformer extends AstTransformer {
+public final class BinaryExprOrderTransformer extends AstTransformer {
 
     @Override
-    public void transformUnit(CompilationUnit unit) {
-        walk(unit, BinaryExpr.class, expr -> {
+    public boolean resolvesSymbols() {
+        return true;
+    }
+
+    public BinaryExprOrderTransformer() {
+        handle(BinaryExpr.class, expr -> {
             var op = flip(expr.getOperator());
             if (op == null) {
                 return;
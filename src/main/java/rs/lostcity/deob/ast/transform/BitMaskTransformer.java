@@ -1,6 +1,5 @@
 package rs.lostcity.deob.ast.transform;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.BinaryExpr;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.IntegerLiteralExpr;
@@ -9,7 +8,7 @@ import rs.lostcity.deob.ast.util.ExprUtil;
 
 import java.util.Set;
 
-public class BitMaskTransformer extends AstTransformer {
+public final class BitMaskTransformer extends AstTransformer {
 
 	private static final Set<BinaryExpr.Operator> RIGHT_SHIFT_OPS = Set.of(
 		BinaryExpr.Operator.SIGNED_RIGHT_SHIFT,
@@ -22,8 +21,7 @@ public class BitMaskTransformer extends AstTransformer {
 		BinaryExpr.Operator.XOR
 	);
 
-	@Override
-	public void transformUnit(CompilationUnit unit) {
+	public BitMaskTransformer() {
 		/*
 		 * Transform:
 		 *
@@ -41,7 +39,7 @@ public class BitMaskTransformer extends AstTransformer {
 		 *
 		 *     (x >> 8) & 0xFF
 		 */
-		walk(unit, BinaryExpr.class, expr -> {
+		handle(BinaryExpr.class, expr -> {
 			var shiftOp = expr.getOperator();
 			var bitwiseExpr = expr.getLeft();
 			var shamtExpr = expr.getRight();
@@ -103,7 +101,7 @@ public class BitMaskTransformer extends AstTransformer {
 		 *
 		 *     (x & 0xFF) << 8
 		 */
-		walk(unit, BinaryExpr.class, expr -> {
+		handle(BinaryExpr.class, expr -> {
 			var bitwiseOp = expr.getOperator();
 			var shiftExpr = expr.getLeft();
 			var maskExpr = expr.getRight();
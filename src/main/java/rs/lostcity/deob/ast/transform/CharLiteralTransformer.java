@@ -1,6 +1,5 @@
 package rs.lostcity.deob.ast.transform;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.*;
 import com.github.javaparser.resolution.types.ResolvedPrimitiveType;
 import rs.lostcity.deob.ast.util.ExprUtil;
@@ -10,7 +9,7 @@ import java.util.Set;
 import static com.github.javaparser.ast.expr.BinaryExpr.Operator.*;
 import static java.lang.Character.*;
 
-public class CharLiteralTransformer extends AstTransformer {
+public final class CharLiteralTransformer extends AstTransformer {
 
 	private static final Set<BinaryExpr.Operator> COMPARISON_OPERATORS = Set.of(
 		EQUALS, NOT_EQUALS, LESS, GREATER, LESS_EQUALS, GREATER_EQUALS
@@ -27,15 +26,19 @@ public class CharLiteralTransformer extends AstTransformer {
 	);
 
 	@Override
-	public void transformUnit(CompilationUnit unit) {
-		walk(unit, BinaryExpr.class, expr -> {
+	public boolean resolvesSymbols() {
+		return true;
+	}
+
+	public CharLiteralTransformer() {
+		handle(BinaryExpr.class, expr -> {
 			if (COMPARISON_OPERATORS.contains(expr.getOperator())) {
 				convertToCharLiteral(expr.getLeft(), expr.getRight());
 				convertToCharLiteral(expr.getRight(), expr.getLeft());
 			}
 		});
 
-		walk(unit, AssignExpr.class, expr -> {
+		handle(AssignExpr.class, expr -> {
 			convertToCharLiteral(expr.getTarget(), expr.getValue());
 		});
 	}
@@ -1,16 +1,14 @@
 package rs.lostcity.deob.ast.transform;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.*;
 
 import static com.github.javaparser.ast.expr.BinaryExpr.Operator.*;
 import static rs.lostcity.deob.ast.util.ExprUtil.*;
 
-public class ComplementTransformer extends AstTransformer {
+public final class ComplementTransformer extends AstTransformer {
 
-	@Override
-	public void transformUnit(CompilationUnit unit) {
-		walk(unit, BinaryExpr.class, expr -> {
+	public ComplementTransformer() {
+		handle(BinaryExpr.class, expr -> {
 			var op = complement(expr.getOperator());
 			if (op == null) return;
 
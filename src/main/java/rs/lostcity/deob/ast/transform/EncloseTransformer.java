@@ -1,9 +1,8 @@
 package rs.lostcity.deob.ast.transform;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.*;
 
-public class EncloseTransformer extends AstTransformer {
+public final class EncloseTransformer extends AstTransformer {
 	private enum Associativity { LEFT, RIGHT, NONE }
 
 	private enum Op {
@@ -73,9 +72,8 @@ public class EncloseTransformer extends AstTransformer {
 		}
 	}
 
-	@Override
-	public void transformUnit(CompilationUnit unit) {
-		walk(unit, Expression.class, expr -> {
+	public EncloseTransformer() {
+		handle(Expression.class, expr -> {
 			switch (expr) {
 				case ArrayAccessExpr arrayAccessExpr -> encloseLeft(arrayAccessExpr, arrayAccessExpr.getName());
 				case FieldAccessExpr fieldAccessExpr -> encloseLeft(fieldAccessExpr, fieldAccessExpr.getScope());
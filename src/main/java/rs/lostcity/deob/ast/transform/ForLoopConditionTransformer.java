@@ -1,6 +1,5 @@
 package rs.lostcity.deob.ast.transform;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.AssignExpr;
 import com.github.javaparser.ast.expr.BinaryExpr;
 import com.github.javaparser.ast.expr.Expression;
@@ -12,11 +11,10 @@ import java.util.Objects;
 import static rs.lostcity.deob.ast.util.ExprUtil.flip;
 import static rs.lostcity.deob.ast.util.ExprUtil.hasSideEffects;
 
-public class ForLoopConditionTransformer extends AstTransformer {
+public final class ForLoopConditionTransformer extends AstTransformer {
 
-	@Override
-	public void transformUnit(CompilationUnit unit) {
-		walk(unit, ForStmt.class, stmt -> {
+	public ForLoopConditionTransformer() {
+		handle(ForStmt.class, stmt -> {
 			var updatedExprs = stmt.getUpdate().stream()
 					.map(ForLoopConditionTransformer::getUpdatedExpr)
 					.filter(Objects::nonNull)
@@ -0,0 +1,183 @@
+package rs.lostcity.deob.ast.transform;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import rs.lostcity.deob.ast.util.ChangeObserver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+ * Runs the handlers of several fusible transformers in a single POSTORDER traversal.
+ *
+ * At every node the handlers are applied in the configured transformer order. When a
+ * handler attaches new nodes (e.g. replaces the current node), the handlers after it
+ * are run over the new subtrees before the traversal continues, as they would have
+ * been had each transformer walked the unit on its own. A node that is detached stops
+ * being handled. While the handlers keep changing a node, they are applied to it again
+ * in the same order, so a later transformer's change can be picked up by an earlier one
+ * without another traversal.
+ */
+public class FusedTransformer extends AstTransformer {
+	private static final int MAX_ROUNDS = 8;
+
+	private final List<AstTransformer> transformers;
+	private final List<NodeHandler<?>> handlers = new ArrayList<>();
+
+	public FusedTransformer(List<AstTransformer> transformers) {
+		this.transformers = transformers;
+
+		for (AstTransformer transformer : transformers) {
+			handlers.addAll(transformer.getHandlers());
+		}
+	}
+
+	@Override
+	public String getName() {
+		return transformers.stream().map(AstTransformer::getName).collect(Collectors.joining(", "));
+	}
+
+	@Override
+	public boolean isUnitLocal() {
+		return transformers.stream().allMatch(AstTransformer::isUnitLocal);
+	}
+
+	@Override
+	public boolean resolvesSymbols() {
+		return transformers.stream().anyMatch(AstTransformer::resolvesSymbols);
+	}
+
+	@Override
+	public void preTransform() {
+		for (AstTransformer transformer : transformers) {
+			transformer.preTransform();
+		}
+	}
+
+	@Override
+	public void postTransform() {
+		for (AstTransformer transformer : transformers) {
+			transformer.postTransform();
+		}
+	}
+
+	@Override
+	public void transformUnit(CompilationUnit unit) {
+		var context = new Context();
+		var observer = new ChangeObserver((node, attachedNode) -> {
+			context.changed.add(node);
+
+			if (attachedNode != null) {
+				context.attached.add(attachedNode);
+			}
+		});
+		observer.register(unit);
+
+		try {
+			dispatch(unit, 0, context);
+		} finally {
+			observer.unregister(unit);
+		}
+	}
+
+	private void dispatch(Node root, int from, Context context) {
+		for (Node node : postOrder(root)) {
+			if (node instanceof CompilationUnit || node.getParentNode().isPresent()) {
+				apply(node, from, context);
+			}
+		}
+	}
+
+	// the handlers are applied again while they keep changing the node, up to a limit in case two of them undo each other
+	private void apply(Node node, int from, Context context) {
+		for (int round = 0; round < MAX_ROUNDS; round++) {
+			context.changed.remove(node);
+
+			if (!applyOnce(node, from, context) || !context.changed.contains(node)) {
+				return;
+			}
+		}
+	}
+
+	// false if the node was detached
+	private boolean applyOnce(Node node, int from, Context context) {
+		var attachedNodes = context.attached;
+
+		for (int i = from; i < handlers.size(); i++) {
+			int mark = attachedNodes.size();
+			handlers.get(i).accept(node);
+
+			if (attachedNodes.size() == mark) {
+				continue;
+			}
+
+			var attached = attachedNodes.subList(mark, attachedNodes.size());
+			var roots = topmost(attached);
+			attached.clear();
+
+			for (Node root : roots) {
+				dispatch(root, i + 1, context);
+			}
+
+			if (!(node instanceof CompilationUnit) && node.getParentNode().isEmpty()) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	// handlers may restructure the tree, so the traversal order is fixed up front
+	private static List<Node> postOrder(Node root) {
+		var nodes = new ArrayList<Node>();
+		var stack = new ArrayDeque<Node>();
+		stack.push(root);
+
+		while (!stack.isEmpty()) {
+			var node = stack.pop();
+			nodes.add(node);
+
+			for (Node child : node.getChildNodes()) {
+				stack.push(child);
+			}
+		}
+
+		Collections.reverse(nodes);
+		return nodes;
+	}
+
+	// attached nodes that are still in the tree and not inside another attached node
+	private static List<Node> topmost(List<Node> nodes) {
+		Set<Node> set = Collections.newSetFromMap(new IdentityHashMap<>());
+		set.addAll(nodes);
+
+		var roots = new ArrayList<Node>();
+
+		outer:
+		for (Node node : set) {
+			if (node.findCompilationUnit().isEmpty()) {
+				continue;
+			}
+
+			for (Node parent = node.getParentNode().orElse(null); parent != null; parent = parent.getParentNode().orElse(null)) {
+				if (set.contains(parent)) {
+					continue outer;
+				}
+			}
+
+			roots.add(node);
+		}
+
+		return roots;
+	}
+
+	private static class Context {
+		private final List<Node> attached = new ArrayList<>();
+		private final Set<Node> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+}
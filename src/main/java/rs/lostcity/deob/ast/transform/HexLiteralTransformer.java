@@ -1,13 +1,12 @@
 package rs.lostcity.deob.ast.transform;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.*;
 
 import java.util.Set;
 
 import static rs.lostcity.deob.ast.util.ExprUtil.*;
 
-public class HexLiteralTransformer extends AstTransformer {
+public final class HexLiteralTransformer extends AstTransformer {
 
 	private static final Set<BinaryExpr.Operator> SHIFT_OPS = Set.of(
 		BinaryExpr.Operator.LEFT_SHIFT,
@@ -30,9 +29,8 @@ public class HexLiteralTransformer extends AstTransformer {
 		AssignExpr.Operator.XOR
 	);
 
-	@Override
-	public void transformUnit(CompilationUnit unit) {
-		walk(unit, BinaryExpr.class, expr -> {
+	public HexLiteralTransformer() {
+		handle(BinaryExpr.class, expr -> {
 			var operator = expr.getOperator();
 			if (SHIFT_OPS.contains(operator)) {
 				convertToHex(expr.getLeft());
@@ -43,7 +41,7 @@ public class HexLiteralTransformer extends AstTransformer {
 			}
 		});
 
-		walk(unit, AssignExpr.class, expr -> {
+		handle(AssignExpr.class, expr -> {
 			if (ASSIGN_OPS.contains(expr.getOperator())) {
 				convertToHex(expr.getValue());
 			}
@@ -1,14 +1,12 @@
 package rs.lostcity.deob.ast.transform;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.*;
 import com.github.javaparser.ast.stmt.ExpressionStmt;
 
-public class IdentityTransformer extends AstTransformer {
+public final class IdentityTransformer extends AstTransformer {
 
-	@Override
-	public void transformUnit(CompilationUnit unit) {
-		walk(unit, UnaryExpr.class, expr -> {
+	public IdentityTransformer() {
+		handle(UnaryExpr.class, expr -> {
 			switch (expr.getOperator()) {
 				case PLUS -> {
 					if (expr.getExpression() instanceof UnaryExpr inner) {
@@ -29,7 +27,7 @@ public class IdentityTransformer extends AstTransformer {
 			}
 		});
 
-		walk(unit, BinaryExpr.class, expr -> {
+		handle(BinaryExpr.class, expr -> {
 			switch (expr.getOperator()) {
 				case PLUS -> {
 					if (isZero(expr.getLeft())) {
@@ -70,7 +68,7 @@ public class IdentityTransformer extends AstTransformer {
 			}
 		});
 
-		walk(unit, AssignExpr.class, expr -> {
+		handle(AssignExpr.class, expr -> {
 			var identity = switch (expr.getOperator()) {
                 // x += 0, x -= 0
 				case PLUS, MINUS -> isZero(expr.getValue());
@@ -1,6 +1,7 @@
 package rs.lostcity.deob.ast.transform;
 
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.BinaryExpr;
@@ -10,10 +11,17 @@ import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.stmt.*;
 import com.github.javaparser.ast.type.VoidType;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import rs.lostcity.deob.ast.util.ChangeObserver;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static rs.lostcity.deob.ast.util.ExprUtil.countNots;
 import static rs.lostcity.deob.ast.util.ExprUtil.not;
@@ -21,21 +29,37 @@ import static rs.lostcity.deob.ast.util.ExprUtil.not;
 public class IfElseTransformer extends AstTransformer {
 	private static final int IF_DEINDENT_THRESHOLD = 5;
 
+	@Override
+	public boolean isUnitLocal() {
+		return true;
+	}
+
 	@Override
 	public void transformUnit(CompilationUnit unit) {
-		CompilationUnit oldUnit;
-		do {
-			oldUnit = unit.clone();
-			transform(unit);
-		} while (!unit.equals(oldUnit));
+		var changes = new Changes();
+		changes.observer.register(unit);
+
+		try {
+			do {
+				transform(unit, changes);
+			} while (changes.next());
+		} finally {
+			changes.observer.unregister(unit);
+		}
 	}
 
-	private void transform(CompilationUnit unit) {
-		walk(unit, IfStmt.class, stmt -> {
+	/*
+	 * The rewrites move nodes rather than clone them, so a node must be detached from
+	 * its old parent before it is attached to a new one (otherwise the old parent
+	 * clears the node's parent when its property is later overwritten).
+	 */
+	private void transform(CompilationUnit unit, Changes changes) {
+		changes.walk(unit, IfStmt.class, stmt -> {
 			stmt.getElseStmt().ifPresent(elseStmt -> {
 				var condition = stmt.getCondition();
 				var thenStmt = stmt.getThenStmt();
-				if (isIf(thenStmt) && !isIf(elseStmt)) {
+				var swap = isIf(thenStmt) && !isIf(elseStmt);
+				if (swap) {
 					/*
 					 * Rewrite:
 					 *
@@ -57,9 +81,6 @@ public class IfElseTransformer extends AstTransformer {
 					 *     }
 					 * }
 					 */
-					stmt.setCondition(not(condition));
-					stmt.setThenStmt(elseStmt.clone());
-					stmt.setElseStmt(thenStmt.clone());
 				} else if (!isIf(thenStmt) && isIf(elseStmt)) {
 					/*
 					 * Don't consider any more conditions for swapping the
@@ -90,16 +111,15 @@ public class IfElseTransformer extends AstTransformer {
 				 *
 				 */
 				var notCondition = not(condition);
-				if (countNots(notCondition) < countNots(condition)) {
+				if (swap || countNots(notCondition) < countNots(condition)) {
+					stmt.removeElseStmt();
 					stmt.setCondition(notCondition);
 					if (elseStmt instanceof IfStmt) {
-						var block = new BlockStmt();
-						block.getStatements().add(elseStmt.clone());
-						stmt.setThenStmt(block);
+						stmt.setThenStmt(new BlockStmt(new NodeList<>(elseStmt)));
 					} else {
-						stmt.setThenStmt(elseStmt.clone());
+						stmt.setThenStmt(elseStmt);
 					}
-					stmt.setElseStmt(thenStmt.clone());
+					stmt.setElseStmt(thenStmt);
 				}
 			});
 		});
@@ -119,10 +139,15 @@ public class IfElseTransformer extends AstTransformer {
 		 *     ....
 		 * }
 		 */
-		walk(unit, IfStmt.class, stmt -> {
+		changes.walk(unit, IfStmt.class, stmt -> {
 			stmt.getElseStmt().ifPresent(elseStmt -> {
+				if (elseStmt instanceof IfStmt) {
+					return;
+				}
+
 				var ifStmt = getIf(elseStmt);
 				if (ifStmt != null) {
+					ifStmt.remove();
 					stmt.setElseStmt(ifStmt);
 				}
 			});
@@ -175,10 +200,9 @@ public class IfElseTransformer extends AstTransformer {
 				// rewrite
 				var condition = not(iff.getCondition());
 
-				var tail = blockStmt.clone();
-				tail.getStatements().removeFirst();
-
-				elseStmt.replace(new IfStmt(condition, tail, thenStmt.clone()));
+				statements.removeFirst();
+				stmt.removeElseStmt();
+				stmt.setElseStmt(new IfStmt(condition, blockStmt, thenStmt));
 			});
 		});
 
@@ -220,9 +244,11 @@ public class IfElseTransformer extends AstTransformer {
 					}
 
 					// replace
-					var thenBlock = new BlockStmt(new NodeList<>(new ReturnStmt(condExpr.getThenExpr().clone())));
-					var elseBlock = new BlockStmt(new NodeList<>(new ReturnStmt(condExpr.getElseExpr().clone())));
-					stmt.setElseStmt(new IfStmt(condExpr.getCondition().clone(), thenBlock, elseBlock));
+					stmt.removeElseStmt();
+
+					var thenBlock = new BlockStmt(new NodeList<>(new ReturnStmt(condExpr.getThenExpr())));
+					var elseBlock = new BlockStmt(new NodeList<>(new ReturnStmt(condExpr.getElseExpr())));
+					stmt.setElseStmt(new IfStmt(condExpr.getCondition(), thenBlock, elseBlock));
 				});
 			});
 		});
@@ -256,11 +282,17 @@ public class IfElseTransformer extends AstTransformer {
 				return;
 			}
 
-			outerStmt.setCondition(new BinaryExpr(outerStmt.getCondition().clone(), innerStmt.getCondition().clone(), BinaryExpr.Operator.AND));
-			outerStmt.setThenStmt(innerStmt.getThenStmt().clone());
+			var outerCondition = outerStmt.getCondition();
+			outerStmt.setThenStmt(innerStmt.getThenStmt());
+
+			var condition = new BinaryExpr();
+			outerStmt.setCondition(condition);
+			condition.setLeft(outerCondition);
+			condition.setRight(innerStmt.getCondition());
+			condition.setOperator(BinaryExpr.Operator.AND);
 		});
 
-		walk(unit, MethodDeclaration.class, method -> {
+		changes.walk(unit, MethodDeclaration.class, method -> {
 			if (!(method.getType() instanceof VoidType)) {
 				return;
 			}
@@ -309,17 +341,18 @@ public class IfElseTransformer extends AstTransformer {
 					 *     ...
 					 * }
 					 */
-					if (elseStatements > thenStatements) {
-						body.getStatements().addAll(flatten(elseStmt));
+					iff.removeElseStmt();
 
+					if (elseStatements > thenStatements) {
 						iff.setThenStmt(appendReturn(iff.getThenStmt()));
-						iff.removeElseStmt();
-					} else {
-						body.getStatements().addAll(flatten(iff.getThenStmt()));
 
+						body.getStatements().addAll(flatten(elseStmt));
+					} else {
+						var thenStmt = iff.getThenStmt();
 						iff.setCondition(not(iff.getCondition()));
 						iff.setThenStmt(appendReturn(elseStmt));
-						iff.removeElseStmt();
+
+						body.getStatements().addAll(flatten(thenStmt));
 					}
 				}, () -> {
 					/*
@@ -346,10 +379,11 @@ public class IfElseTransformer extends AstTransformer {
 						return;
 					}
 
-					body.getStatements().addAll(flatten(iff.getThenStmt()));
-
+					var thenStmt = iff.getThenStmt();
 					iff.setCondition(not(iff.getCondition()));
 					iff.setThenStmt(new BlockStmt(new NodeList<>(new ReturnStmt())));
+
+					body.getStatements().addAll(flatten(thenStmt));
 				});
 			});
 		});
@@ -373,7 +407,7 @@ public class IfElseTransformer extends AstTransformer {
 		 * ...
 		 */
 		class Counter { int index = 0; }
-		walk(unit, BlockStmt.class, blockStmt -> {
+		changes.walk(unit, BlockStmt.class, blockStmt -> {
 			/*
 			 * XXX(gpe): need to iterate through blockStmt.stmts manually as we
 			 * insert extra statements during iteration (ugh!)
@@ -397,17 +431,13 @@ public class IfElseTransformer extends AstTransformer {
 					 * whole will end up longer.
 					 */
 					if (isThrow(iff.getThenStmt())) {
-						blockStmt.getStatements().addAll(counter.index + 1, flatten(elseStmt));
-
 						iff.removeElseStmt();
 
+						blockStmt.getStatements().addAll(counter.index + 1, flatten(elseStmt));
+
 						return;
 					} else if (isThrow(elseStmt)) {
-						blockStmt.getStatements().addAll(counter.index + 1, flatten(iff.getThenStmt()));
-
-						iff.setCondition(not(iff.getCondition()));
-						iff.setThenStmt(appendReturn(elseStmt));
-						iff.removeElseStmt();
+						invert(blockStmt, counter.index, iff, elseStmt);
 
 						return;
 					}
@@ -419,15 +449,11 @@ public class IfElseTransformer extends AstTransformer {
 					}
 
 					if (elseStatements > thenStatements && isTailThrowOrReturn(iff.getThenStmt())) {
-						blockStmt.getStatements().addAll(counter.index + 1, flatten(elseStmt));
-
 						iff.removeElseStmt();
-					} else if (isTailThrowOrReturn(elseStmt)) {
-						blockStmt.getStatements().addAll(counter.index + 1, flatten(iff.getThenStmt()));
 
-						iff.setCondition(not(iff.getCondition()));
-						iff.setThenStmt(appendReturn(elseStmt));
-						iff.removeElseStmt();
+						blockStmt.getStatements().addAll(counter.index + 1, flatten(elseStmt));
+					} else if (isTailThrowOrReturn(elseStmt)) {
+						invert(blockStmt, counter.index, iff, elseStmt);
 					}
 				});
 
@@ -436,25 +462,34 @@ public class IfElseTransformer extends AstTransformer {
 		});
 	}
 
+	/*
+	 * Replaces the if statement's else arm with its then arm, which is moved after the
+	 * if statement in the enclosing block.
+	 */
+	private static void invert(BlockStmt blockStmt, int index, IfStmt iff, Statement elseStmt) {
+		var thenStmt = iff.getThenStmt();
+		iff.removeElseStmt();
+		iff.setCondition(not(iff.getCondition()));
+		iff.setThenStmt(appendReturn(elseStmt));
+
+		blockStmt.getStatements().addAll(index + 1, flatten(thenStmt));
+	}
+
 	private static Statement appendReturn(Statement stmt) {
 		if (stmt instanceof BlockStmt blockStmt) {
 			var tail = blockStmt.getStatements().getLast().orElse(null);
-			if (tail instanceof ReturnStmt || tail instanceof ThrowStmt) {
-				return stmt.clone();
-			} else {
-				var list = new NodeList<Statement>();
-				for (var statement : blockStmt.getStatements()) {
-					list.add(statement.clone());
-				}
-				if (canAppend(tail)) {
-					list.add(new ReturnStmt());
-				}
-				return new BlockStmt(list);
+			if (!(tail instanceof ReturnStmt || tail instanceof ThrowStmt) && canAppend(tail)) {
+				blockStmt.getStatements().add(new ReturnStmt());
 			}
+			return stmt;
 		} else if (stmt instanceof ReturnStmt || stmt instanceof ThrowStmt) {
-			return stmt.clone();
+			return stmt;
+		} else if (stmt.getParentNode().isPresent()) {
+			var blockStmt = new BlockStmt();
+			stmt.replace(blockStmt);
+			return blockStmt.addStatement(stmt).addStatement(new ReturnStmt());
 		} else {
-			return new BlockStmt(new NodeList<>(stmt.clone(), new ReturnStmt()));
+			return new BlockStmt(new NodeList<>(stmt, new ReturnStmt()));
 		}
 	}
 
@@ -494,15 +529,14 @@ public class IfElseTransformer extends AstTransformer {
 		return condition instanceof BooleanLiteralExpr literal && literal.getValue();
 	}
 
+	// stmt must already be detached, its statements are moved out of it
 	private static Collection<Statement> flatten(Statement stmt) {
 		if (stmt instanceof BlockStmt blockStmt) {
-			var list = new ArrayList<Statement>();
-			for (var statement : blockStmt.getStatements()) {
-				list.add(statement.clone());
-			}
+			var list = new ArrayList<>(blockStmt.getStatements());
+			blockStmt.getStatements().clear();
 			return list;
 		} else {
-			return List.of(stmt.clone());
+			return List.of(stmt);
 		}
 	}
 
@@ -512,13 +546,13 @@ public class IfElseTransformer extends AstTransformer {
 
 	private static IfStmt getIf(Statement stmt) {
 		return switch (stmt) {
-			case IfStmt ifStmt -> ifStmt.clone();
+			case IfStmt ifStmt -> ifStmt;
 
 			case BlockStmt blockStmt -> {
 				var stmts = blockStmt.getStatements();
 				var head = stmts.size() == 1 ? stmts.getFirst().orElseThrow() : null;
 				if (head instanceof IfStmt iff) {
-					yield iff.clone();
+					yield iff;
 				} else {
 					yield null;
 				}
@@ -555,6 +589,94 @@ public class IfElseTransformer extends AstTransformer {
 		};
 	}
 
+	/*
+	 * Tracks the nodes that have to be looked at again: every node under which a change
+	 * was made, and every node created by a rewrite. A rewrite only depends on the
+	 * subtree it is applied to, so a pass can skip the rest of the unit, and the
+	 * transformer is done once a pass makes no changes.
+	 */
+	private static class Changes implements ChangeObserver.Listener {
+		private final ChangeObserver observer = new ChangeObserver(this);
+		private Set<Node> previous; // changed in the previous pass, or null on the first
+		private Set<Node> current = newSet();
+
+		private static Set<Node> newSet() {
+			return Collections.newSetFromMap(new IdentityHashMap<>());
+		}
+
+		public boolean next() {
+			if (current.isEmpty()) {
+				return false;
+			}
+
+			previous = current;
+			current = newSet();
+			return true;
+		}
+
+		private boolean isDirty(Node node) {
+			return previous == null || previous.contains(node) || current.contains(node);
+		}
+
+		// POSTORDER walk, skipping subtrees in which nothing changed
+		public <T extends Node> void walk(Node root, Class<T> type, Consumer<T> consumer) {
+			if (!isDirty(root)) {
+				return;
+			}
+
+			var nodes = new ArrayDeque<Node>();
+			var children = new ArrayDeque<Iterator<Node>>();
+			nodes.push(root);
+			children.push(List.copyOf(root.getChildNodes()).iterator());
+
+			while (!nodes.isEmpty()) {
+				var it = children.peek();
+				if (it.hasNext()) {
+					var child = it.next();
+					if (isDirty(child)) {
+						nodes.push(child);
+						children.push(List.copyOf(child.getChildNodes()).iterator());
+					}
+					continue;
+				}
+
+				children.pop();
+				var node = nodes.pop();
+				if (type.isInstance(node)) {
+					consumer.accept(type.cast(node));
+				}
+			}
+		}
+
+		@Override
+		public void changed(Node node, Node attached) {
+			mark(node);
+
+			if (attached != null) {
+				markCreated(attached);
+			}
+		}
+
+		private void mark(Node node) {
+			while (node != null && current.add(node)) {
+				node = node.getParentNode().orElse(null);
+			}
+		}
+
+		// moved nodes are already registered and don't need looking at again
+		private void markCreated(Node node) {
+			if (node.isRegistered(observer)) {
+				return;
+			}
+
+			mark(node);
+
+			for (Node child : node.getChildNodes()) {
+				markCreated(child);
+			}
+		}
+	}
+
 	private static class ExitBranchVisitor extends VoidVisitorAdapter<Void> {
 		private boolean hasExitBranch = false;
 		private int loopDepth = 0;
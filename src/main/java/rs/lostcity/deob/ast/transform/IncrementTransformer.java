@@ -1,22 +1,20 @@
 package rs.lostcity.deob.ast.transform;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.UnaryExpr;
 import com.github.javaparser.ast.stmt.ExpressionStmt;
 import com.github.javaparser.ast.stmt.ForStmt;
 
-public class IncrementTransformer extends AstTransformer {
+public final class IncrementTransformer extends AstTransformer {
 
-    @Override
-    public void transformUnit(CompilationUnit unit) {
-        walk(unit, ExpressionStmt.class, stmt -> {
+    public IncrementTransformer() {
+        handle(ExpressionStmt.class, stmt -> {
 			if (stmt.getExpression() instanceof UnaryExpr unaryExpr) {
 				unaryExpr.setOperator(toPostfix(unaryExpr.getOperator()));
 			}
 		});
 
-        walk(unit, ForStmt.class, forStmt -> {
+        handle(ForStmt.class, forStmt -> {
             for (Expression expr : forStmt.getUpdate()) {
 				if (expr instanceof UnaryExpr unaryExpr) {
 					unaryExpr.setOperator(toPostfix(unaryExpr.getOperator()));
@@ -1,14 +1,17 @@
 package rs.lostcity.deob.ast.transform;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.MethodCallExpr;
 import rs.lostcity.deob.ast.util.NodeUtil;
 
-public class NewInstanceTransformer extends AstTransformer {
+public final class NewInstanceTransformer extends AstTransformer {
 
 	@Override
-	public void transformUnit(CompilationUnit unit) {
-		walk(unit, MethodCallExpr.class, expr -> {
+	public boolean resolvesSymbols() {
+		return true;
+	}
+
+	public NewInstanceTransformer() {
+		handle(MethodCallExpr.class, expr -> {
 			if (!expr.getNameAsString().equals("newInstance")) {
 				return;
 			}
@@ -1,6 +1,5 @@
 package rs.lostcity.deob.ast.transform;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.BinaryExpr;
 import com.github.javaparser.ast.expr.BooleanLiteralExpr;
 import com.github.javaparser.ast.expr.Expression;
@@ -11,11 +10,10 @@ import static com.github.javaparser.ast.expr.BinaryExpr.Operator.NOT_EQUALS;
 import static com.github.javaparser.ast.expr.UnaryExpr.Operator.LOGICAL_COMPLEMENT;
 import static rs.lostcity.deob.ast.util.ExprUtil.not;
 
-public class NotTransformer extends AstTransformer {
+public final class NotTransformer extends AstTransformer {
 
-	@Override
-	public void transformUnit(CompilationUnit unit) {
-		walk(unit, BinaryExpr.class, expr -> {
+	public NotTransformer() {
+		handle(BinaryExpr.class, expr -> {
 			var op = flip(expr.getOperator());
 			if (op == null) return;
 
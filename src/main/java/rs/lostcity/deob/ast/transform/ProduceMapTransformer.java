@@ -12,13 +12,23 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class ProduceMapTransformer extends AstTransformer {
-    private String result = "";
+    // per-unit output, ordered by unit so the map doesn't depend on the order units are visited in
+    private final Map<String, String> results = new ConcurrentSkipListMap<>();
+
+    @Override
+    public boolean isUnitLocal() {
+        return true;
+    }
 
     @Override
     public void preTransform() {
+        results.clear();
+
         File file = new File("remap.txt");
         if (file.exists()) {
             file.delete();
@@ -35,7 +45,7 @@ public class ProduceMapTransformer extends AstTransformer {
     public void postTransform() {
         File file = new File("remap.txt");
         try {
-            Files.write(file.toPath(), result.getBytes());
+            Files.write(file.toPath(), String.join("", results.values()).getBytes());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -43,6 +53,7 @@ public class ProduceMapTransformer extends AstTransformer {
 
     @Override
     public void transformUnit(CompilationUnit unit) {
+        StringBuilder result = new StringBuilder();
         AtomicReference<String> pkgName = new AtomicReference<>();
 
         walk(unit, PackageDeclaration.class, pkg -> {
@@ -56,9 +67,9 @@ public class ProduceMapTransformer extends AstTransformer {
             }
 
             if (pkgName.get() != null) {
-                result += originalName + "=" + pkgName + "." + annotation.getNameAsString() + "\n";
+                result.append(originalName + "=" + pkgName + "." + annotation.getNameAsString() + "\n");
             } else {
-                result += originalName + "=" + annotation.getNameAsString() + "\n";
+                result.append(originalName + "=" + annotation.getNameAsString() + "\n");
             }
         });
 
@@ -77,12 +88,12 @@ public class ProduceMapTransformer extends AstTransformer {
                     newClass = clazz.getNameAsString();
                 }
 
-                result += foundClass + "=" + newClass + "\n";
+                result.append(foundClass + "=" + newClass + "\n");
             } /* else {
                 foundClass = clazz.getNameAsString();
 
                 if (pkgName.get() != null) {
-                    result += foundClass + "=" + pkgName + "." + clazz.getNameAsString() + "\n";
+                    result.append(foundClass + "=" + pkgName + "." + clazz.getNameAsString() + "\n");
                 }
             } */
 
@@ -100,9 +111,9 @@ public class ProduceMapTransformer extends AstTransformer {
                 }
 
                 if (field.isStatic() && !originalClass.equals(getOriginalClass(field.getAnnotations()))) {
-                    result += originalName + "=" + originalClass + "," + fieldName + "\n";
+                    result.append(originalName + "=" + originalClass + "," + fieldName + "\n");
                 } else {
-                    result += originalName + "=" + fieldName + "\n";
+                    result.append(originalName + "=" + fieldName + "\n");
                 }
             });
 
@@ -118,12 +129,25 @@ public class ProduceMapTransformer extends AstTransformer {
                 }
 
                 if (method.isStatic() && !originalClass.equals(getOriginalClass(method.getAnnotations()))) {
-                    result += originalName + "=" + originalClass + "," + memberName + "\n";
+                    result.append(originalName + "=" + originalClass + "," + memberName + "\n");
                 } else {
-                    result += originalName + "=" + memberName + "\n";
+                    result.append(originalName + "=" + memberName + "\n");
                 }
             });
         });
+
+        if (!result.isEmpty()) {
+            results.put(getUnitName(unit), result.toString());
+        }
+    }
+
+    private static String getUnitName(CompilationUnit unit) {
+        if (unit.getStorage().isPresent()) {
+            return unit.getStorage().get().getPath().toString();
+        }
+
+        String pkg = unit.getPackageDeclaration().map(decl -> decl.getNameAsString() + ".").orElse("");
+        return pkg + (unit.getTypes().isEmpty() ? "" : unit.getType(0).getNameAsString());
     }
 
     public String getOriginalName(List<AnnotationExpr> annotations, boolean addDescriptor) {
@@ -1,6 +1,5 @@
 package rs.lostcity.deob.ast.transform;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.*;
 import com.github.javaparser.resolution.MethodAmbiguityException;
 import com.github.javaparser.resolution.declarations.ResolvedMethodLikeDeclaration;
@@ -13,7 +12,7 @@ import java.util.Set;
 
 import static com.github.javaparser.resolution.types.ResolvedPrimitiveType.*;
 
-public class RedundantCastTransformer extends AstTransformer {
+public final class RedundantCastTransformer extends AstTransformer {
 
 	private static final Map<ResolvedType, Set<ResolvedType>> WIDENING_CONVERSIONS = new HashMap<>() {{
 		put(BYTE, Set.of(SHORT, INT, LONG, FLOAT, DOUBLE));
@@ -34,9 +33,13 @@ public class RedundantCastTransformer extends AstTransformer {
 	}};
 
 	@Override
-	public void transformUnit(CompilationUnit unit) {
+	public boolean resolvesSymbols() {
+		return true;
+	}
+
+	public RedundantCastTransformer() {
 		// remove double casts
-		walk(unit, CastExpr.class, expr -> {
+		handle(CastExpr.class, expr -> {
 			var innerExpr = expr.getExpression();
 			if (innerExpr instanceof CastExpr castExpr && expr.getType().equals(castExpr.getType())) {
 				expr.setExpression(castExpr.getExpression().clone());
@@ -44,7 +47,7 @@ public class RedundantCastTransformer extends AstTransformer {
 		});
 
 		// remove null argument casts if the call remains unambiguous
-		walk(unit, MethodCallExpr.class, expr -> {
+		handle(MethodCallExpr.class, expr -> {
 			for (int i = 0; i < expr.getArguments().size(); i++) {
 				var arg = expr.getArguments().get(i);
 
@@ -64,7 +67,7 @@ public class RedundantCastTransformer extends AstTransformer {
 			}
 		});
 
-		walk(unit, ObjectCreationExpr.class, expr -> {
+		handle(ObjectCreationExpr.class, expr -> {
 			for (int i = 0; i < expr.getArguments().size(); i++) {
 				var arg = expr.getArguments().get(i);
 
@@ -85,7 +88,7 @@ public class RedundantCastTransformer extends AstTransformer {
 		});
 
 		// remove null assignment casts
-		walk(unit, VariableDeclarationExpr.class, expr -> {
+		handle(VariableDeclarationExpr.class, expr -> {
 			for (var variable : expr.getVariables()) {
 				variable.getInitializer().ifPresent(initializer -> {
 					if (isCastedNull(initializer)) {
@@ -95,7 +98,7 @@ public class RedundantCastTransformer extends AstTransformer {
 			}
 		});
 
-		walk(unit, AssignExpr.class, expr -> {
+		handle(AssignExpr.class, expr -> {
 			if (isCastedNull(expr.getValue())) {
 				expr.setValue(new NullLiteralExpr());
 			}
@@ -105,7 +108,7 @@ public class RedundantCastTransformer extends AstTransformer {
 		 * replace casts with widening/narrowing conversions
 		 * see https://docs.oracle.com/javase/specs/jls/se11/html/jls-5.html
 		 */
-		walk(unit, CastExpr.class, expr -> {
+		handle(CastExpr.class, expr -> {
 			expr.getParentNode().ifPresent(parent -> {
 				if (!(parent instanceof AssignExpr) && !(parent instanceof CastExpr)) {
 					return;
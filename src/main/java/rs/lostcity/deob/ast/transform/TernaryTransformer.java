@@ -1,16 +1,14 @@
 package rs.lostcity.deob.ast.transform;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.ConditionalExpr;
 
 import static rs.lostcity.deob.ast.util.ExprUtil.countNots;
 import static rs.lostcity.deob.ast.util.ExprUtil.not;
 
-public class TernaryTransformer extends AstTransformer {
+public final class TernaryTransformer extends AstTransformer {
 
-	@Override
-	public void transformUnit(CompilationUnit unit) {
-		walk(unit, ConditionalExpr.class, expr -> {
+	public TernaryTransformer() {
+		handle(ConditionalExpr.class, expr -> {
 			var condition = expr.getCondition();
 			var notCondition = not(condition);
 			if (countNots(notCondition) >= countNots(condition)) {
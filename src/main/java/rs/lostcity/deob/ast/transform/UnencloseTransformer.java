@@ -1,13 +1,11 @@
 package rs.lostcity.deob.ast.transform;
 
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.expr.EnclosedExpr;
 
-public class UnencloseTransformer extends AstTransformer {
+public final class UnencloseTransformer extends AstTransformer {
 
-	@Override
-	public void transformUnit(CompilationUnit unit) {
-		walk(unit, EnclosedExpr.class, expr -> {
+	public UnencloseTransformer() {
+		handle(EnclosedExpr.class, expr -> {
 			expr.replace(expr.getInner().clone());
 		});
 	}
@@ -0,0 +1,85 @@
+package rs.lostcity.deob.ast.util;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.observer.AstObserver;
+import com.github.javaparser.ast.observer.ObservableProperty;
+import com.github.javaparser.metamodel.PropertyMetaModel;
+
+import java.util.function.Consumer;
+
+/**
+ * Observes every change to a subtree, including the nodes attached to it after it was
+ * registered. The listener gets the node that was changed and, if the change attached
+ * a node, the attached node (otherwise null). It is called before the attached node is
+ * registered, so any node in its subtree that is not registered yet is a new one rather
+ * than one moved from elsewhere in the tree.
+ */
+public class ChangeObserver implements AstObserver {
+	private final Listener listener;
+
+	public ChangeObserver(Listener listener) {
+		this.listener = listener;
+	}
+
+	public void register(Node root) {
+		root.walk(node -> {
+			if (!node.isRegistered(this)) {
+				node.register(this);
+			}
+
+			forEachList(node, list -> {
+				if (!list.isRegistered(this)) {
+					list.register(this);
+				}
+			});
+		});
+	}
+
+	public void unregister(Node root) {
+		root.walk(node -> {
+			node.unregister(this);
+			forEachList(node, list -> list.unregister(this));
+		});
+	}
+
+	private static void forEachList(Node node, Consumer<NodeList<?>> consumer) {
+		for (PropertyMetaModel property : node.getMetaModel().getAllPropertyMetaModels()) {
+			if (property.isNodeList() && property.getValue(node) instanceof NodeList<?> list) {
+				consumer.accept(list);
+			}
+		}
+	}
+
+	private void changed(Node node, Node attached) {
+		listener.changed(node, attached);
+
+		if (attached != null) {
+			register(attached);
+		}
+	}
+
+	@Override
+	public void propertyChange(Node observedNode, ObservableProperty property, Object oldValue, Object newValue) {
+		changed(observedNode, newValue instanceof Node node && newValue != oldValue ? node : null);
+	}
+
+	@Override
+	public void parentChange(Node observedNode, Node previousParent, Node newParent) {
+	}
+
+	@Override
+	public void listChange(NodeList<?> observedNode, ListChangeType type, int index, Node nodeAddedOrRemoved) {
+		changed(observedNode.getParentNode().orElse(null), type == ListChangeType.ADDITION ? nodeAddedOrRemoved : null);
+	}
+
+	@Override
+	public void listReplacement(NodeList<?> observedNode, int index, Node oldNode, Node newNode) {
+		changed(observedNode.getParentNode().orElse(null), newNode != oldNode ? newNode : null);
+	}
+
+	@FunctionalInterface
+	public interface Listener {
+		void changed(Node node, Node attached);
+	}
+}
@@ -0,0 +1,85 @@
+package rs.lostcity.deob.ast.util;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Solves types from compilation units that are held in memory rather than read from
+ * a source directory. Units are keyed by the qualified name of their primary type.
+ */
+public class CompilationUnitTypeSolver implements TypeSolver {
+	private final Map<String, CompilationUnit> units;
+	private TypeSolver parent;
+
+	public CompilationUnitTypeSolver() {
+		this(new ConcurrentHashMap<>());
+	}
+
+	private CompilationUnitTypeSolver(Map<String, CompilationUnit> units) {
+		this.units = units;
+	}
+
+	/**
+	 * A separate solver over the same units, for use in another solver hierarchy.
+	 */
+	public CompilationUnitTypeSolver view() {
+		return new CompilationUnitTypeSolver(units);
+	}
+
+	public void add(String qualifiedName, CompilationUnit unit) {
+		units.put(qualifiedName, unit);
+	}
+
+	@Override
+	public TypeSolver getParent() {
+		return parent;
+	}
+
+	@Override
+	public void setParent(TypeSolver parent) {
+		this.parent = parent;
+	}
+
+	@Override
+	public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+		// the unit is named after the outermost type, the rest of the name are nested types
+		String[] parts = name.split("\\.");
+
+		for (int i = parts.length; i > 0; i--) {
+			CompilationUnit unit = units.get(String.join(".", Arrays.copyOfRange(parts, 0, i)));
+			if (unit == null) {
+				continue;
+			}
+
+			String primary = parts[i - 1];
+			Optional<TypeDeclaration<?>> type = unit.getTypes().stream()
+				.filter(t -> t.getNameAsString().equals(primary))
+				.findFirst();
+
+			for (int j = i; j < parts.length && type.isPresent(); j++) {
+				String member = parts[j];
+				type = type.get().getMembers().stream()
+					.filter(TypeDeclaration.class::isInstance)
+					.map(TypeDeclaration.class::cast)
+					.filter(t -> t.getNameAsString().equals(member))
+					.<TypeDeclaration<?>>map(t -> t)
+					.findFirst();
+			}
+
+			if (type.isPresent()) {
+				return SymbolReference.solved(JavaParserFacade.get(getRoot()).getTypeDeclaration(type.get()));
+			}
+		}
+
+		return SymbolReference.unsolved();
+	}
+}
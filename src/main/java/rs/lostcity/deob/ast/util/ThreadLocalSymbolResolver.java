@@ -0,0 +1,42 @@
+package rs.lostcity.deob.ast.util;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.resolution.SymbolResolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.types.ResolvedType;
+
+import java.util.function.Supplier;
+
+/**
+ * Gives every thread its own symbol resolver (and with it its own type solvers and
+ * JavaParserFacade), as their caches are not safe for concurrent use.
+ */
+public class ThreadLocalSymbolResolver implements SymbolResolver {
+	private final ThreadLocal<SymbolResolver> resolvers;
+
+	public ThreadLocalSymbolResolver(Supplier<SymbolResolver> factory) {
+		this.resolvers = ThreadLocal.withInitial(factory);
+	}
+
+	@Override
+	public <T> T resolveDeclaration(Node node, Class<T> resultClass) {
+		return resolvers.get().resolveDeclaration(node, resultClass);
+	}
+
+	@Override
+	public <T> T toResolvedType(Type javaparserType, Class<T> resultClass) {
+		return resolvers.get().toResolvedType(javaparserType, resultClass);
+	}
+
+	@Override
+	public ResolvedType calculateType(Expression expression) {
+		return resolvers.get().calculateType(expression);
+	}
+
+	@Override
+	public ResolvedReferenceTypeDeclaration toTypeDeclaration(Node node) {
+		return resolvers.get().toTypeDeclaration(node);
+	}
+}
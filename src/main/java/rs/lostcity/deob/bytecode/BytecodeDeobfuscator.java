@@ -1,17 +1,23 @@
 package rs.lostcity.deob.bytecode;
 
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.tree.ClassNode;
+import rs.lostcity.asm.ClassPool;
 import rs.lostcity.asm.transform.Transformer;
 import rs.lostcity.deob.bytecode.transform.*;
 import org.tomlj.TomlArray;
 import org.tomlj.TomlParseResult;
 import rs.lostcity.deob.bytecode.transform.openrs2.*;
 import rs.lostcity.deob.bytecode.transform.zwyz.*;
+import rs.lostcity.deob.JarUtil;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 public class BytecodeDeobfuscator {
     private final TomlParseResult profile;
@@ -57,7 +63,7 @@ public class BytecodeDeobfuscator {
         registerTransformer(new AnnotateObfuscatedNamesTransformer());
         registerTransformer(new UniqueRenamerTransformer());
         registerTransformer(new StaticInstanceMethodsTransformer()); // runelite
-        registerTransformer(new CalledMethodsTransformer()); // if runelite, be sure to run a second time!
+        registerTransformer(new CalledMethodsTransformer()); // reporting only, the call graph is rebuilt where it is used
         registerTransformer(new ErrorHandlersTransformer());
         registerTransformer(new ParameterChecksTransformer());
         registerTransformer(new UnreachableCodeTransformer()); // extracted out of GotoTransformer
@@ -78,26 +84,183 @@ public class BytecodeDeobfuscator {
     public void run(List<ClassNode> classes) throws IOException {
         System.out.println("---- Processing bytecode ----");
 
+        // method-local transformers are fanned out per method when enabled
+        ForkJoinPool pool = null;
+        if (Boolean.TRUE.equals(profile.getBoolean("profile.deob.parallel"))) {
+            Long threads = profile.getLong("profile.deob.threads");
+            pool = new ForkJoinPool(threads != null ? threads.intValue() : Runtime.getRuntime().availableProcessors());
+        }
+
+        // shared name and reference index, rebuilt on demand after each transformer
+        ClassPool classPool = new ClassPool(classes);
+
+        List<String> stats = new ArrayList<>();
+
         TomlArray transformers = this.profile.getArray("profile.deob.transformers");
         if (transformers != null) {
             for (int i = 0; i < transformers.size(); i++) {
                 String name = transformers.getString(i);
 
                 Transformer transformer = this.allTransformers.get(name);
-                if (transformer != null) {
-                    System.out.println("Applying " + name + " transformer");
-                    transformer.transform(classes);
-                } else {
+                if (transformer == null) {
                     System.err.println("Unknown transformer: " + name);
+                } else if (transformer.isStreamable()) {
+                    // consecutive streamable transformers share a single copy of each class
+                    List<Transformer> streamed = new ArrayList<>(List.of(transformer));
+
+                    while (i + 1 < transformers.size() && this.allTransformers.get(transformers.getString(i + 1)) instanceof Transformer next && next.isStreamable()) {
+                        streamed.add(next);
+                        i++;
+                    }
+
+                    System.out.println("Applying " + streamed.stream().map(Transformer::getName).toList() + " transformers in one pass");
+
+                    this.stream(streamed, classPool.getClasses(), pool);
+                    classPool.invalidate();
+
+                    streamed.forEach(t -> stats.add(t.getName() + ": streamed"));
+                } else {
+                    System.out.println("Applying " + name + " transformer");
+
+                    transformer.transform(classPool, pool);
+
+                    if (transformer.getPasses() > 0) {
+                        stats.add(name + ": " + transformer.getPasses() + " passes, " + transformer.getChanges() + " changes");
+                    } else {
+                        stats.add(name + ": single run");
+                    }
                 }
             }
         }
 
+        if (pool != null) {
+            pool.shutdown();
+        }
+
+        if (!stats.isEmpty()) {
+            System.out.println("---- Transformer passes ----");
+            stats.forEach(System.out::println);
+        }
+
         if (Boolean.TRUE.equals(profile.getBoolean("profile.remap.enable"))) {
             System.out.println("---- Remapping classes ----");
             Transformer remap = new RemapTransformer();
             remap.provide(this.profile);
-            remap.transform(classes);
+            remap.transform(classPool, null);
         }
     }
+
+    /**
+     * Whether the whole profile can run by streaming the jar, without reading it into
+     * trees: every transformer is streamable and the classes aren't remapped after.
+     */
+    public boolean isStreamable() {
+        TomlArray transformers = this.profile.getArray("profile.deob.transformers");
+        if (transformers == null || transformers.isEmpty() || Boolean.TRUE.equals(profile.getBoolean("profile.remap.enable"))) {
+            return false;
+        }
+
+        for (int i = 0; i < transformers.size(); i++) {
+            Transformer transformer = this.allTransformers.get(transformers.getString(i));
+            if (transformer == null || !transformer.isStreamable()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /*
+     * The streamed counterpart of run, going straight from one jar to another. Any
+     * classes the transformers add in preTransform are run through them as trees and
+     * written after the jar's own.
+     */
+    public void run(Path input, Path output, int level) throws IOException {
+        System.out.println("---- Streaming bytecode ----");
+
+        List<Transformer> streamed = new ArrayList<>();
+
+        TomlArray transformers = this.profile.getArray("profile.deob.transformers");
+        for (int i = 0; i < transformers.size(); i++) {
+            streamed.add(this.allTransformers.get(transformers.getString(i)));
+        }
+
+        System.out.println("Applying " + streamed.stream().map(Transformer::getName).toList() + " transformers in one pass");
+
+        List<ClassNode> added = new ArrayList<>();
+        for (Transformer transformer : streamed) {
+            transformer.preTransform(added);
+        }
+
+        added.forEach(clazz -> accept(clazz, streamed));
+
+        for (Transformer transformer : streamed) {
+            transformer.postTransform(added);
+        }
+
+        JarUtil.transformClasses(input, output, next -> createVisitor(streamed, next), added, level);
+    }
+
+    /*
+     * Every transformer sees each class once, in profile order, and each class is
+     * rebuilt from the output in place.
+     */
+    private void stream(List<Transformer> streamed, List<ClassNode> classes, ForkJoinPool pool) {
+        for (Transformer transformer : streamed) {
+            transformer.preTransform(classes);
+        }
+
+        if (pool != null) {
+            pool.submit(() -> classes.parallelStream().forEach(clazz -> accept(clazz, streamed))).join();
+        } else {
+            classes.forEach(clazz -> accept(clazz, streamed));
+        }
+
+        for (Transformer transformer : streamed) {
+            transformer.postTransform(classes);
+        }
+    }
+
+    /*
+     * The class is visited into a new node, which is then copied back over the original:
+     * transformers can keep hold of nodes in the program (e.g. the statics class), so the
+     * nodes themselves stay the same.
+     */
+    private static void accept(ClassNode clazz, List<Transformer> streamed) {
+        ClassNode result = new ClassNode();
+        clazz.accept(createVisitor(streamed, result));
+
+        clazz.version = result.version;
+        clazz.access = result.access;
+        clazz.name = result.name;
+        clazz.signature = result.signature;
+        clazz.superName = result.superName;
+        clazz.interfaces = result.interfaces;
+        clazz.sourceFile = result.sourceFile;
+        clazz.sourceDebug = result.sourceDebug;
+        clazz.module = result.module;
+        clazz.outerClass = result.outerClass;
+        clazz.outerMethod = result.outerMethod;
+        clazz.outerMethodDesc = result.outerMethodDesc;
+        clazz.visibleAnnotations = result.visibleAnnotations;
+        clazz.invisibleAnnotations = result.invisibleAnnotations;
+        clazz.visibleTypeAnnotations = result.visibleTypeAnnotations;
+        clazz.invisibleTypeAnnotations = result.invisibleTypeAnnotations;
+        clazz.attrs = result.attrs;
+        clazz.innerClasses = result.innerClasses;
+        clazz.nestHostClass = result.nestHostClass;
+        clazz.nestMembers = result.nestMembers;
+        clazz.permittedSubclasses = result.permittedSubclasses;
+        clazz.recordComponents = result.recordComponents;
+        clazz.fields = result.fields;
+        clazz.methods = result.methods;
+    }
+
+    private static ClassVisitor createVisitor(List<Transformer> streamed, ClassVisitor next) {
+        for (int i = streamed.size() - 1; i >= 0; i--) {
+            next = streamed.get(i).createVisitor(next);
+        }
+
+        return next;
+    }
 }
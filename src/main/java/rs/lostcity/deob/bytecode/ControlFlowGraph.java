@@ -0,0 +1,146 @@
+package rs.lostcity.deob.bytecode;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Basic-block control flow graph of a method. Blocks start at the first instruction,
+ * at jump and exception handler targets, after jumps and terminal instructions, and
+ * at try/catch range boundaries, so a block is either entirely inside or entirely
+ * outside each try range. Exception edges are kept separate from normal ones.
+ *
+ * The graph is a snapshot, it has to be rebuilt after the method is modified.
+ */
+public class ControlFlowGraph {
+    private final InsnList list;
+    private final AbstractInsnNode[] instructions;
+    private final int[] blockIndices;
+    private final List<BasicBlock> blocks = new ArrayList<>();
+
+    private ControlFlowGraph(InsnList list) {
+        this.list = list;
+        this.instructions = list.toArray();
+        this.blockIndices = new int[instructions.length];
+    }
+
+    public static ControlFlowGraph of(MethodNode method) {
+        var graph = new ControlFlowGraph(method.instructions);
+        graph.build(method);
+        return graph;
+    }
+
+    private void build(MethodNode method) {
+        var leaders = new BitSet(instructions.length + 1);
+        leaders.set(0);
+        leaders.set(instructions.length);
+
+        for (var tryCatch : method.tryCatchBlocks) {
+            leaders.set(list.indexOf(tryCatch.start));
+            leaders.set(list.indexOf(tryCatch.end));
+            leaders.set(list.indexOf(tryCatch.handler));
+        }
+
+        for (var i = 0; i < instructions.length; i++) {
+            var targets = AsmUtil.getJumpTargets(instructions[i]);
+
+            for (var target : targets) {
+                leaders.set(list.indexOf(target));
+            }
+
+            if (!targets.isEmpty() || AsmUtil.isTerminal(instructions[i])) {
+                leaders.set(i + 1);
+            }
+        }
+
+        var start = 0;
+
+        while (start < instructions.length) {
+            var end = leaders.nextSetBit(start + 1);
+            var block = new BasicBlock(blocks.size(), start, end);
+
+            Arrays.fill(blockIndices, start, end, block.index);
+            blocks.add(block);
+
+            start = end;
+        }
+
+        for (var block : blocks) {
+            var last = instructions[block.end - 1];
+
+            if (!AsmUtil.isTerminal(last) && block.index + 1 < blocks.size()) {
+                block.addSuccessor(blocks.get(block.index + 1));
+            }
+
+            for (var target : AsmUtil.getJumpTargets(last)) {
+                block.addSuccessor(getBlock(target));
+            }
+        }
+
+        for (var tryCatch : method.tryCatchBlocks) {
+            var handler = getBlock(tryCatch.handler);
+            var end = blockIndices[list.indexOf(tryCatch.end)];
+
+            for (var i = blockIndices[list.indexOf(tryCatch.start)]; i < end; i++) {
+                blocks.get(i).addHandler(handler);
+            }
+        }
+    }
+
+    public AbstractInsnNode[] getInstructions() {
+        return instructions;
+    }
+
+    public List<BasicBlock> getBlocks() {
+        return blocks;
+    }
+
+    public BasicBlock getEntry() {
+        return blocks.isEmpty() ? null : blocks.getFirst();
+    }
+
+    public int indexOf(AbstractInsnNode instruction) {
+        return list.indexOf(instruction);
+    }
+
+    public BasicBlock getBlock(AbstractInsnNode instruction) {
+        return blocks.get(blockIndices[list.indexOf(instruction)]);
+    }
+
+    public static class BasicBlock {
+        public final int index;
+        // instruction index range, end is exclusive
+        public final int start;
+        public final int end;
+
+        public final List<BasicBlock> successors = new ArrayList<>();
+        public final List<BasicBlock> predecessors = new ArrayList<>();
+        public final List<BasicBlock> handlers = new ArrayList<>();
+        public final List<BasicBlock> handledBlocks = new ArrayList<>();
+
+        public BasicBlock(int index, int start, int end) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+        }
+
+        private void addSuccessor(BasicBlock block) {
+            if (!successors.contains(block)) {
+                successors.add(block);
+                block.predecessors.add(this);
+            }
+        }
+
+        private void addHandler(BasicBlock block) {
+            if (!handlers.contains(block)) {
+                handlers.add(block);
+                block.handledBlocks.add(this);
+            }
+        }
+    }
+}
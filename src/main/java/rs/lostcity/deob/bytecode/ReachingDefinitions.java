@@ -0,0 +1,240 @@
+package rs.lostcity.deob.bytecode;
+
+import rs.lostcity.deob.bytecode.ControlFlowGraph.BasicBlock;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Bitset-based reaching definitions for local variables over a {@link ControlFlowGraph}.
+ * Definitions are the instructions that store a variable (xSTORE and IINC), plus one
+ * implicit definition on method entry for each of the first parameterSlots variables.
+ * Exception handlers see every definition that reaches any instruction of a covered block.
+ */
+public class ReachingDefinitions {
+    private final ControlFlowGraph graph;
+    private final int parameterSlots;
+
+    // definition id -> instruction index (-1 for parameters), and the variable it defines
+    private final int[] definitionInstructions;
+    private final int[] definitionVars;
+    // instruction index -> definition id, or -1
+    private final int[] instructionDefinitions;
+    private final BitSet[] definitionsByVar;
+
+    private final BitSet[] in;
+    private final BitSet[] out;
+    private final BitSet[] exceptionOut;
+
+    public ReachingDefinitions(ControlFlowGraph graph, int parameterSlots) {
+        this.graph = graph;
+        this.parameterSlots = parameterSlots;
+
+        var instructions = graph.getInstructions();
+        var maxVar = parameterSlots;
+        var count = parameterSlots;
+
+        for (var instruction : instructions) {
+            var var = AsmUtil.getStoredVar(instruction);
+
+            if (var != -1) {
+                count++;
+            }
+
+            maxVar = Math.max(maxVar, Math.max(var, AsmUtil.getLoadedVar(instruction)) + 1);
+        }
+
+        this.definitionInstructions = new int[count];
+        this.definitionVars = new int[count];
+        this.instructionDefinitions = new int[instructions.length];
+        this.definitionsByVar = new BitSet[maxVar];
+
+        for (var var = 0; var < maxVar; var++) {
+            definitionsByVar[var] = new BitSet(count);
+        }
+
+        for (var var = 0; var < parameterSlots; var++) {
+            definitionInstructions[var] = -1;
+            definitionVars[var] = var;
+            definitionsByVar[var].set(var);
+        }
+
+        var id = parameterSlots;
+
+        for (var i = 0; i < instructions.length; i++) {
+            var var = AsmUtil.getStoredVar(instructions[i]);
+
+            if (var != -1) {
+                definitionInstructions[id] = i;
+                definitionVars[id] = var;
+                definitionsByVar[var].set(id);
+                instructionDefinitions[i] = id++;
+            } else {
+                instructionDefinitions[i] = -1;
+            }
+        }
+
+        var blocks = graph.getBlocks();
+        this.in = new BitSet[blocks.size()];
+        this.out = new BitSet[blocks.size()];
+        this.exceptionOut = new BitSet[blocks.size()];
+
+        solve();
+    }
+
+    private void solve() {
+        var blocks = graph.getBlocks();
+        var gen = new BitSet[blocks.size()];
+        var kill = new BitSet[blocks.size()];
+        var firstKill = new BitSet[blocks.size()];
+        var defined = new BitSet[blocks.size()];
+
+        for (var block : blocks) {
+            var blockGen = new BitSet();
+            var blockKill = new BitSet();
+            var blockDefined = new BitSet();
+
+            for (var i = block.start; i < block.end; i++) {
+                var definition = instructionDefinitions[i];
+
+                if (definition == -1) {
+                    continue;
+                }
+
+                var defs = definitionsByVar[definitionVars[definition]];
+                blockGen.andNot(defs);
+                blockGen.set(definition);
+                blockKill.or(defs);
+                blockDefined.set(definition);
+            }
+
+            // only what the first instruction overwrites is lost before any handler can see it
+            var first = instructionDefinitions[block.start];
+
+            gen[block.index] = blockGen;
+            kill[block.index] = blockKill;
+            firstKill[block.index] = first != -1 ? definitionsByVar[definitionVars[first]] : new BitSet();
+            defined[block.index] = blockDefined;
+
+            in[block.index] = new BitSet();
+            out[block.index] = new BitSet();
+            exceptionOut[block.index] = new BitSet();
+        }
+
+        var entry = graph.getEntry();
+        if (entry == null) {
+            return;
+        }
+
+        in[entry.index].set(0, parameterSlots);
+
+        var queue = new ArrayDeque<BasicBlock>(blocks);
+        var queued = new BitSet(blocks.size());
+        queued.set(0, blocks.size());
+
+        while (!queue.isEmpty()) {
+            var block = queue.removeFirst();
+            queued.clear(block.index);
+
+            var blockIn = in[block.index];
+
+            for (var predecessor : block.predecessors) {
+                blockIn.or(out[predecessor.index]);
+            }
+
+            for (var handled : block.handledBlocks) {
+                blockIn.or(exceptionOut[handled.index]);
+            }
+
+            var blockOut = (BitSet) blockIn.clone();
+            blockOut.andNot(kill[block.index]);
+            blockOut.or(gen[block.index]);
+
+            var blockExceptionOut = (BitSet) blockIn.clone();
+            blockExceptionOut.andNot(firstKill[block.index]);
+            blockExceptionOut.or(defined[block.index]);
+
+            if (!blockOut.equals(out[block.index])) {
+                out[block.index] = blockOut;
+
+                for (var successor : block.successors) {
+                    if (!queued.get(successor.index)) {
+                        queued.set(successor.index);
+                        queue.addLast(successor);
+                    }
+                }
+            }
+
+            if (!blockExceptionOut.equals(exceptionOut[block.index])) {
+                exceptionOut[block.index] = blockExceptionOut;
+
+                for (var handler : block.handlers) {
+                    if (!queued.get(handler.index)) {
+                        queued.set(handler.index);
+                        queue.addLast(handler);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The instruction index of a definition, or -1 if it is a parameter's entry definition.
+     */
+    public int getDefinitionInstruction(int definition) {
+        return definitionInstructions[definition];
+    }
+
+    /**
+     * Calls the consumer with every (use, definition) pair where the definition reaches the
+     * use. Uses are xLOAD and IINC instructions, identified by their instruction index.
+     */
+    public void forEachUse(UseConsumer consumer) {
+        var instructions = graph.getInstructions();
+        var local = new int[definitionsByVar.length];
+        var touched = new ArrayList<Integer>();
+        Arrays.fill(local, -1);
+
+        for (var block : graph.getBlocks()) {
+            var blockIn = in[block.index];
+
+            for (var i = block.start; i < block.end; i++) {
+                var var = AsmUtil.getLoadedVar(instructions[i]);
+
+                if (var != -1) {
+                    if (local[var] != -1) {
+                        consumer.accept(i, local[var]);
+                    } else {
+                        var defs = definitionsByVar[var];
+
+                        for (var definition = defs.nextSetBit(0); definition != -1; definition = defs.nextSetBit(definition + 1)) {
+                            if (blockIn.get(definition)) {
+                                consumer.accept(i, definition);
+                            }
+                        }
+                    }
+                }
+
+                var definition = instructionDefinitions[i];
+
+                if (definition != -1) {
+                    local[definitionVars[definition]] = definition;
+                    touched.add(definitionVars[definition]);
+                }
+            }
+
+            for (var var : touched) {
+                local[var] = -1;
+            }
+
+            touched.clear();
+        }
+    }
+
+    @FunctionalInterface
+    public interface UseConsumer {
+        void accept(int use, int definition);
+    }
+}
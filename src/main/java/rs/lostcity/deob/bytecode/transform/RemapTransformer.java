@@ -4,6 +4,7 @@ import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.commons.ClassRemapper;
 import org.objectweb.asm.commons.Remapper;
 import org.objectweb.asm.tree.*;
+import rs.lostcity.asm.ClassPool;
 import rs.lostcity.asm.transform.Transformer;
 import org.tomlj.TomlParseResult;
 import rs.lostcity.deob.bytecode.transform.zwyz.SortFieldsNameTransformer;
@@ -12,6 +13,7 @@ import rs.lostcity.deob.bytecode.transform.zwyz.SortMethodsTransformer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class RemapTransformer extends Transformer {
     private static String mappingFile = "remap.txt";
@@ -33,7 +35,7 @@ public class RemapTransformer extends Transformer {
     }
 
     @Override
-    public void transform(List<ClassNode> classes) {
+    public void transform(List<ClassNode> classes, ForkJoinPool pool) {
         var mappings = new HashMap<String, String>();
 
         try {
@@ -91,7 +93,7 @@ public class RemapTransformer extends Transformer {
             }
         }
 
-        moveStatics(classes, newOwners);
+        moveStatics(getClassPool(classes), newOwners);
 
         // Re-sort by line numbers after moving statics and inners
         new SortMethodsTransformer().transform(classes);
@@ -221,9 +223,11 @@ public class RemapTransformer extends Transformer {
 
         classes.clear();
         classes.addAll(mappedClasses);
+        getClassPool(classes).invalidate();
     }
 
-    private static void moveStatics(List<ClassNode> classes, HashMap<String, String> newOwners) {
+    private static void moveStatics(ClassPool classPool, HashMap<String, String> newOwners) {
+        var classes = classPool.getClasses();
         var classesByName = new HashMap<String, ClassNode>();
 
         for (var clazz : classes) {
@@ -240,8 +244,7 @@ public class RemapTransformer extends Transformer {
 
                     var owner = classesByName.get(newOwners.get(field.name));
                     if (owner != null) {
-                        clazz.fields.remove(field);
-                        owner.fields.add(field);
+                        classPool.moveField(clazz, owner, field);
                     }
                 }
             }
@@ -254,31 +257,25 @@ public class RemapTransformer extends Transformer {
 
                     var owner = classesByName.get(newOwners.get(method.name));
                     if (owner != null) {
-                        clazz.methods.remove(method);
-                        owner.methods.add(method);
+                        classPool.moveMethod(clazz, owner, method);
                     }
                 }
             }
         }
 
         // Update references
-        for (var clazz : classes) {
-            for (var method : clazz.methods) {
-                for (var instruction : method.instructions) {
-                    if (instruction instanceof FieldInsnNode fieldInsn && newOwners.containsKey(fieldInsn.name)) {
-                        var owner = classesByName.get(newOwners.get(fieldInsn.name));
-                        if (owner != null) {
-                            fieldInsn.owner = owner.name;
-                        }
-                    }
+        for (var entry : newOwners.entrySet()) {
+            var owner = classesByName.get(entry.getValue());
+            if (owner == null) {
+                continue;
+            }
 
-                    if (instruction instanceof MethodInsnNode methodInsn && newOwners.containsKey(methodInsn.name)) {
-                        var owner = classesByName.get(newOwners.get(methodInsn.name));
-                        if (owner != null) {
-                            methodInsn.owner = owner.name;
-                        }
-                    }
-                }
+            for (var fieldInsn : classPool.getFieldReferences(entry.getKey())) {
+                fieldInsn.owner = owner.name;
+            }
+
+            for (var methodInsn : classPool.getMethodReferences(entry.getKey())) {
+                methodInsn.owner = owner.name;
             }
         }
     }
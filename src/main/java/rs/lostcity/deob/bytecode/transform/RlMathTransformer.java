@@ -8,40 +8,29 @@ import net.runelite.deob.deobfuscators.arithmetic.MultiplyZeroDeobfuscator;
 import net.runelite.deob.util.RlJarUtil;
 import org.objectweb.asm.tree.ClassNode;
 import rs.lostcity.asm.transform.Transformer;
-import rs.lostcity.deob.JarUtil;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class RlMathTransformer extends Transformer {
     @Override
     public void preTransform(List<ClassNode> classes) {
-        ClassGroup group;
-
-        try {
-            JarUtil.writeClasses(Paths.get("deob-rl-pre.jar"), classes);
-            classes.clear();
-
-            group = RlJarUtil.loadJar(new File("deob-rl-pre.jar"));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        ClassGroup group = RlJarUtil.loadClasses(classes);
+        ForkJoinPool pool = this.getPool();
 
         new MultiplyOneDeobfuscator(false).run(group); // changed: intentionally removing early
 
-        ModArith mod = new ModArith();
+        ModArith mod = new ModArith(pool);
         mod.run(group);
 
         int last = -1, cur;
         while ((cur = mod.runOnce()) > 0) {
-            new MultiplicationDeobfuscator().run(group);
+            new MultiplicationDeobfuscator(pool).run(group);
 
             // do not remove 1 * field so that ModArith can detect
             // the change in guessDecreasesConstants()
             new MultiplyOneDeobfuscator(true).run(group);
-            new MultiplyZeroDeobfuscator().run(group);
+            new MultiplyZeroDeobfuscator(pool).run(group);
 
             if (last == cur) {
                 break;
@@ -54,14 +43,6 @@ public class RlMathTransformer extends Transformer {
         new MultiplyOneDeobfuscator(false).run(group);
         // mod.annotateEncryption();
 
-        try {
-            RlJarUtil.saveJar(group, new File("deob-rl-post.jar"));
-            JarUtil.readClasses(Paths.get("deob-rl-post.jar"), classes);
-
-            new File("deob-rl-pre.jar").delete();
-            new File("deob-rl-post.jar").delete();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        RlJarUtil.saveClasses(group, classes);
     }
 }
@@ -18,6 +18,11 @@ public class BitShiftTransformer extends Transformer {
 
     private int simplified;
 
+    @Override
+    public boolean preservesCalls() {
+        return true;
+    }
+
     @Override
     public void preTransform(List<ClassNode> classes) {
         this.simplified = 0;
@@ -18,6 +18,11 @@ import java.util.List;
 public class ExceptionObfuscationTransformer extends Transformer {
     private int handlers = 0;
 
+    @Override
+    public boolean preservesHierarchy() {
+        return true;
+    }
+
     @Override
     public void preTransform(List<ClassNode> classes) {
         this.handlers = 0;
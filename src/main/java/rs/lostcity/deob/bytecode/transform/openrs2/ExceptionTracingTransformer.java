@@ -33,6 +33,11 @@ public class ExceptionTracingTransformer extends Transformer {
 
     private int tryCatches = 0;
 
+    @Override
+    public boolean preservesHierarchy() {
+        return true;
+    }
+
     @Override
     public void preTransform(List<ClassNode> classes) {
         this.tryCatches = 0;
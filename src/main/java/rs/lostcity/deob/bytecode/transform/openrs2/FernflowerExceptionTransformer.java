@@ -12,6 +12,11 @@ import java.util.List;
 public class FernflowerExceptionTransformer extends Transformer {
     private int nopsInserted = 0;
 
+    @Override
+    public boolean preservesHierarchy() {
+        return true;
+    }
+
     @Override
     public void preTransform(List<ClassNode> classes) {
         nopsInserted = 0;
@@ -3,6 +3,7 @@ package rs.lostcity.deob.bytecode.transform.openrs2;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.*;
 import rs.lostcity.asm.InsnMatcher;
+import rs.lostcity.asm.InsnMultiMatcher;
 import rs.lostcity.asm.InsnNodeUtil;
 import rs.lostcity.asm.transform.Transformer;
 
@@ -40,12 +41,19 @@ public class MonitorTransformer extends Transformer {
     private final InsnMatcher JSR_MATCHER = InsnMatcher.compile("ACONST_NULL GOTO");
     private final InsnMatcher SUBROUTINE_MATCHER = InsnMatcher.compile("ASTORE ALOAD MONITOREXIT GOTO");
 
+    private final InsnMultiMatcher SUBROUTINE_MATCHERS = InsnMultiMatcher.of(JSR_MATCHER, SUBROUTINE_MATCHER);
+
     private final InsnMatcher LOAD_MATCHER = InsnMatcher.compile("ASTORE ALOAD MONITORENTER");
 
     private int subroutinesInlined = 0;
     private int tryRangesExtended = 0;
     private int loadsReplaced = 0;
 
+    @Override
+    public boolean preservesHierarchy() {
+        return true;
+    }
+
     @Override
     public boolean transformCode(List<ClassNode> classes, ClassNode clazz, MethodNode method) {
         inlineSubroutines(method);
@@ -55,12 +63,14 @@ public class MonitorTransformer extends Transformer {
     }
 
     private void inlineSubroutines(MethodNode method) {
+        var matches = this.SUBROUTINE_MATCHERS.match(method.instructions);
+
         Map<AbstractInsnNode, List<AbstractInsnNode>> subroutines = new HashMap<>();
-        for (List<AbstractInsnNode> match : this.SUBROUTINE_MATCHER.match(method.instructions)) {
+        for (List<AbstractInsnNode> match : matches.get(this.SUBROUTINE_MATCHER)) {
             subroutines.put(match.getFirst(), match);
         }
 
-        for (List<AbstractInsnNode> match : this.JSR_MATCHER.match(method.instructions)) {
+        for (List<AbstractInsnNode> match : matches.get(this.JSR_MATCHER)) {
             JumpInsnNode jsr = (JumpInsnNode) match.get(1);
             List<AbstractInsnNode> subroutine = subroutines.get(InsnNodeUtil.getNextReal(jsr.label));
             if (subroutine == null) {
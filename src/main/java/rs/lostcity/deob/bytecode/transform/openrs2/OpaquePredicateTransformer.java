@@ -3,11 +3,14 @@ package rs.lostcity.deob.bytecode.transform.openrs2;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.*;
 import rs.lostcity.asm.InsnMatcher;
+import rs.lostcity.asm.InsnMultiMatcher;
 import rs.lostcity.asm.InsnNodeUtil;
 import rs.lostcity.asm.MemberRef;
 import rs.lostcity.asm.transform.Transformer;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
 
@@ -26,10 +29,18 @@ public class OpaquePredicateTransformer extends Transformer {
     private final InsnMatcher OPAQUE_PREDICATE_MATCHER = InsnMatcher.compile("(GETSTATIC | ILOAD) (IFEQ | IFNE)");
     private final InsnMatcher STORE_MATCHER = InsnMatcher.compile("GETSTATIC ISTORE");
 
+    private final InsnMultiMatcher INITIALIZER_MATCHERS = InsnMultiMatcher.of(FLOW_OBSTRUCTOR_INITIALIZER_MATCHER, STORE_MATCHER);
+    private final InsnMultiMatcher PREDICATE_MATCHERS = InsnMultiMatcher.of(OPAQUE_PREDICATE_MATCHER, STORE_MATCHER);
+
     private final Set<String> flowObfuscators = new HashSet<>();
     private int opaquePredicates = 0;
     private int stores = 0;
 
+    @Override
+    public boolean preservesHierarchy() {
+        return true;
+    }
+
     @Override
     public void preTransform(List<ClassNode> classes) {
         flowObfuscators.clear();
@@ -48,15 +59,21 @@ public class OpaquePredicateTransformer extends Transformer {
     }
 
     private void findFlowObstructors(MethodNode method, ClassNode owner) {
-        for (List<AbstractInsnNode> match : this.FLOW_OBSTRUCTOR_INITIALIZER_MATCHER.match(method.instructions)) {
+        var matches = this.INITIALIZER_MATCHERS.match(method.instructions);
+        var storeMatches = matches.get(this.STORE_MATCHER);
+
+        // stores inside an initializer go away with it
+        Set<AbstractInsnNode> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (List<AbstractInsnNode> match : matches.get(this.FLOW_OBSTRUCTOR_INITIALIZER_MATCHER)) {
             FieldInsnNode putstatic = (FieldInsnNode) match.getLast();
 
             AbstractInsnNode first = match.getFirst();
             if (first instanceof VarInsnNode) {
                 boolean storeFound = false;
-                for (List<AbstractInsnNode> storeMatch : this.STORE_MATCHER.match(method.instructions)) {
+                for (List<AbstractInsnNode> storeMatch : storeMatches) {
                     FieldInsnNode getstatic = (FieldInsnNode) storeMatch.getFirst();
-                    if (getstatic.name.equals(putstatic.name)) {
+                    if (!removed.contains(getstatic) && getstatic.name.equals(putstatic.name)) {
                         storeFound = true;
                         break;
                     }
@@ -70,7 +87,10 @@ public class OpaquePredicateTransformer extends Transformer {
             flowObfuscators.add(new MemberRef(putstatic).toString());
 
             // remove initializer
-            match.subList(2, match.size()).forEach(method.instructions::remove);
+            for (AbstractInsnNode insn : match.subList(2, match.size())) {
+                method.instructions.remove(insn);
+                removed.add(insn);
+            }
 
             // remove field
             // owner.fields.removeIf(field -> field.name.equals(putstatic.name) && field.desc.equals(putstatic.desc));
@@ -81,7 +101,7 @@ public class OpaquePredicateTransformer extends Transformer {
         return flowObfuscators.contains(new MemberRef(insn).toString());
     }
 
-    private boolean isOpaquePredicate(MethodNode method, List<AbstractInsnNode> match) {
+    private boolean isOpaquePredicate(Set<Integer> flowObstructorVars, List<AbstractInsnNode> match) {
         AbstractInsnNode load = match.getFirst();
 
         if (load instanceof FieldInsnNode && load.getOpcode() == Opcodes.GETSTATIC) {
@@ -89,15 +109,7 @@ public class OpaquePredicateTransformer extends Transformer {
         }
 
         VarInsnNode iload = (VarInsnNode) load;
-        for (List<AbstractInsnNode> storeMatch : this.STORE_MATCHER.match(method.instructions)) {
-            FieldInsnNode getstatic = (FieldInsnNode) storeMatch.get(0);
-            VarInsnNode istore = (VarInsnNode) storeMatch.get(1);
-            if (isFlowObstructor(getstatic) && iload.var == istore.var) {
-                return true;
-            }
-        }
-
-        return false;
+        return flowObstructorVars.contains(iload.var);
     }
 
     private boolean isRedundantStore(List<AbstractInsnNode> match) {
@@ -107,8 +119,22 @@ public class OpaquePredicateTransformer extends Transformer {
 
     @Override
     public boolean transformCode(List<ClassNode> classes, ClassNode clazz, MethodNode method) {
-        for (List<AbstractInsnNode> match : this.OPAQUE_PREDICATE_MATCHER.match(method.instructions)) {
-            if (isOpaquePredicate(method, match)) {
+        var matches = this.PREDICATE_MATCHERS.match(method.instructions);
+        var storeMatches = matches.get(this.STORE_MATCHER);
+
+        // locals a flow obstructor is stored in
+        Set<Integer> flowObstructorVars = new HashSet<>();
+        for (List<AbstractInsnNode> storeMatch : storeMatches) {
+            FieldInsnNode getstatic = (FieldInsnNode) storeMatch.get(0);
+            VarInsnNode istore = (VarInsnNode) storeMatch.get(1);
+            if (isFlowObstructor(getstatic)) {
+                flowObstructorVars.add(istore.var);
+            }
+        }
+
+        boolean changed = false;
+        for (List<AbstractInsnNode> match : matches.get(this.OPAQUE_PREDICATE_MATCHER)) {
+            if (isOpaquePredicate(flowObstructorVars, match)) {
                 JumpInsnNode branch = (JumpInsnNode) match.get(1);
                 switch (branch.getOpcode()) {
                     case Opcodes.IFEQ:
@@ -123,10 +149,16 @@ public class OpaquePredicateTransformer extends Transformer {
                 }
 
                 opaquePredicates++;
+                changed = true;
             }
         }
 
-        for (List<AbstractInsnNode> match : this.STORE_MATCHER.match(method.instructions)) {
+        // removing a predicate can leave a new GETSTATIC ISTORE pair behind
+        if (changed) {
+            storeMatches = this.STORE_MATCHER.match(method.instructions);
+        }
+
+        for (List<AbstractInsnNode> match : storeMatches) {
             if (isRedundantStore(match)) {
                 match.forEach(method.instructions::remove);
                 stores++;
@@ -12,6 +12,11 @@ import java.util.List;
 public class RedundantGotoTransformer extends Transformer {
 	private int removed;
 
+	@Override
+	public boolean preservesHierarchy() {
+		return true;
+	}
+
 	@Override
 	public void preTransform(List<ClassNode> classes) {
 		removed = 0;
@@ -1,5 +1,8 @@
 package rs.lostcity.deob.bytecode.transform.openrs2;
 
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
 import rs.lostcity.asm.transform.Transformer;
@@ -11,22 +14,49 @@ import java.util.List;
  */
 public class VisibilityTransformer extends Transformer {
     @Override
-    public boolean transformClass(List<ClassNode> classes, ClassNode clazz) {
-        clazz.access = (clazz.access & ~Opcodes.ACC_PRIVATE) | Opcodes.ACC_PUBLIC;
-        clazz.access = clazz.access & ~Opcodes.ACC_FINAL;
+    public boolean isStreamable() {
+        return true;
+    }
 
-        clazz.fields.forEach(field -> {
-            if ((field.access & (Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED | Opcodes.ACC_PRIVATE)) == 0) {
-                field.access = (field.access & ~Opcodes.ACC_PRIVATE) | Opcodes.ACC_PUBLIC;
+    @Override
+    public ClassVisitor createVisitor(ClassVisitor next) {
+        return new ClassVisitor(Opcodes.ASM9, next) {
+            @Override
+            public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                super.visit(version, classAccess(access), name, signature, superName, interfaces);
             }
-        });
 
-        clazz.methods.forEach(method -> {
-            if ((method.access & (Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED | Opcodes.ACC_PRIVATE)) == 0) {
-                method.access = (method.access & ~Opcodes.ACC_PRIVATE) | Opcodes.ACC_PUBLIC;
+            @Override
+            public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+                return super.visitField(memberAccess(access), name, descriptor, signature, value);
             }
-        });
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return super.visitMethod(memberAccess(access), name, descriptor, signature, exceptions);
+            }
+        };
+    }
+
+    @Override
+    public boolean transformClass(List<ClassNode> classes, ClassNode clazz) {
+        clazz.access = classAccess(clazz.access);
+        clazz.fields.forEach(field -> field.access = memberAccess(field.access));
+        clazz.methods.forEach(method -> method.access = memberAccess(method.access));
 
         return false;
     }
+
+    private static int classAccess(int access) {
+        access = (access & ~Opcodes.ACC_PRIVATE) | Opcodes.ACC_PUBLIC;
+        return access & ~Opcodes.ACC_FINAL;
+    }
+
+    private static int memberAccess(int access) {
+        if ((access & (Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED | Opcodes.ACC_PRIVATE)) == 0) {
+            access = (access & ~Opcodes.ACC_PRIVATE) | Opcodes.ACC_PUBLIC;
+        }
+
+        return access;
+    }
 }
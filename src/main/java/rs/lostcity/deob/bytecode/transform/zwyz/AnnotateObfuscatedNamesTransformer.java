@@ -1,6 +1,11 @@
 package rs.lostcity.deob.bytecode.transform.zwyz;
 
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.RecordComponentVisitor;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.MethodNode;
 import rs.lostcity.asm.transform.Transformer;
@@ -30,6 +35,129 @@ public class AnnotateObfuscatedNamesTransformer extends Transformer {
         classes.add(obfuscatedNameClass);
     }
 
+    @Override
+    public boolean isStreamable() {
+        return true;
+    }
+
+    /*
+     * Annotations have to be visited before any of the members (or the code, for a
+     * method), so each annotation is added right before the first of those comes past.
+     */
+    @Override
+    public ClassVisitor createVisitor(ClassVisitor next) {
+        return new ClassVisitor(Opcodes.ASM9, next) {
+            private String className;
+            private boolean annotate;
+
+            @Override
+            public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                super.visit(version, access, name, signature, superName, interfaces);
+
+                className = name;
+                annotate = !name.equals(obfuscatedNameClass.name) && !isExternal(name) && AsmUtil.isClassObfuscated(name.substring(name.lastIndexOf('/') + 1));
+            }
+
+            private void annotateClass() {
+                if (annotate) {
+                    annotate = false;
+                    annotate(super.visitAnnotation("L" + obfuscatedNameClass.name + ";", false), className);
+                }
+            }
+
+            @Override
+            public void visitNestMember(String nestMember) {
+                annotateClass();
+                super.visitNestMember(nestMember);
+            }
+
+            @Override
+            public void visitPermittedSubclass(String permittedSubclass) {
+                annotateClass();
+                super.visitPermittedSubclass(permittedSubclass);
+            }
+
+            @Override
+            public void visitInnerClass(String name, String outerName, String innerName, int access) {
+                annotateClass();
+                super.visitInnerClass(name, outerName, innerName, access);
+            }
+
+            @Override
+            public RecordComponentVisitor visitRecordComponent(String name, String descriptor, String signature) {
+                annotateClass();
+                return super.visitRecordComponent(name, descriptor, signature);
+            }
+
+            @Override
+            public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+                annotateClass();
+                var visitor = super.visitField(access, name, descriptor, signature, value);
+
+                if (isExternal(className) || !AsmUtil.isFieldObfuscated(name)) {
+                    return visitor;
+                }
+
+                // added after the field's own annotations, as the tree transform does
+                return new FieldVisitor(Opcodes.ASM9, visitor) {
+                    @Override
+                    public void visitEnd() {
+                        annotate(super.visitAnnotation("L" + obfuscatedNameClass.name + ";", false), className + "." + name);
+                        super.visitEnd();
+                    }
+                };
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                annotateClass();
+                var visitor = super.visitMethod(access, name, descriptor, signature, exceptions);
+
+                if (isExternal(className) || !AsmUtil.isMethodObfuscated(name)) {
+                    return visitor;
+                }
+
+                return new MethodVisitor(Opcodes.ASM9, visitor) {
+                    private boolean annotate = true;
+
+                    private void annotateMethod() {
+                        if (annotate) {
+                            annotate = false;
+                            annotate(super.visitAnnotation("L" + obfuscatedNameClass.name + ";", false), className + "." + name + descriptor);
+                        }
+                    }
+
+                    @Override
+                    public void visitCode() {
+                        annotateMethod();
+                        super.visitCode();
+                    }
+
+                    @Override
+                    public void visitEnd() {
+                        annotateMethod();
+                        super.visitEnd();
+                    }
+                };
+            }
+
+            @Override
+            public void visitEnd() {
+                annotateClass();
+                super.visitEnd();
+            }
+        };
+    }
+
+    private static boolean isExternal(String className) {
+        return ZwyzLegacyLogic.EXTERNAL_LIBRARIES.stream().anyMatch(className::startsWith);
+    }
+
+    private static void annotate(AnnotationVisitor annotation, String value) {
+        annotation.visit("value", value);
+        annotation.visitEnd();
+    }
+
     @Override
     public boolean transformClass(List<ClassNode> classes, ClassNode clazz) {
         if (ZwyzLegacyLogic.EXTERNAL_LIBRARIES.stream().anyMatch(p -> clazz.name.startsWith(p))) {
@@ -1,5 +1,10 @@
 package rs.lostcity.deob.bytecode.transform.zwyz;
 
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AnnotationNode;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.FieldNode;
@@ -9,6 +14,47 @@ import rs.lostcity.asm.transform.Transformer;
 import java.util.List;
 
 public class AnnotationRemoverTransformer extends Transformer {
+    @Override
+    public boolean isMethodLocal() {
+        return true;
+    }
+
+    @Override
+    public boolean isStreamable() {
+        return true;
+    }
+
+    @Override
+    public ClassVisitor createVisitor(ClassVisitor next) {
+        // returning null from visitAnnotation drops the annotation
+        return new ClassVisitor(Opcodes.ASM9, next) {
+            @Override
+            public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                return null;
+            }
+
+            @Override
+            public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+                return new FieldVisitor(Opcodes.ASM9, super.visitField(access, name, descriptor, signature, value)) {
+                    @Override
+                    public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                        return null;
+                    }
+                };
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return new MethodVisitor(Opcodes.ASM9, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+                    @Override
+                    public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                        return null;
+                    }
+                };
+            }
+        };
+    }
+
     @Override
     public boolean transformClass(List<ClassNode> classes, ClassNode clazz) {
         removeAnnotations(clazz.invisibleAnnotations);
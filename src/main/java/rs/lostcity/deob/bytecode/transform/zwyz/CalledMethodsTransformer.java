@@ -1,43 +1,26 @@
 package rs.lostcity.deob.bytecode.transform.zwyz;
 
-import org.objectweb.asm.Handle;
 import org.objectweb.asm.tree.ClassNode;
-import org.objectweb.asm.tree.InvokeDynamicInsnNode;
-import org.objectweb.asm.tree.MethodInsnNode;
 import rs.lostcity.asm.transform.Transformer;
 
-import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
+/*
+ * Reports how much of the program is reachable. The call graph itself is built on
+ * demand by the transformers that need it, so this no longer has to run (or be run
+ * again) before them.
+ */
 public class CalledMethodsTransformer extends Transformer {
     @Override
-    public void transform(List<ClassNode> classes) {
-        var calledMethods = new LinkedHashSet<String>();
-
-        for (var clazz : classes) {
-            for (var method : clazz.methods) {
-                for (var instruction : method.instructions) {
-                    if (instruction instanceof MethodInsnNode mi) {
-                        calledMethods.add(mi.name);
-                    }
-
-                    if (instruction instanceof InvokeDynamicInsnNode id) {
-                        if (id.bsmArgs[1] instanceof Handle handle) {
-                            calledMethods.add(handle.getName());
-                        }
-                    }
-                }
-            }
-        }
+    public boolean preservesCalls() {
+        return true;
+    }
 
-        for (var clazz : classes) {
-            for (var method : clazz.methods) {
-                if (!method.name.startsWith("method")) {
-                    calledMethods.add(method.name);
-                }
-            }
-        }
+    @Override
+    public void transform(List<ClassNode> classes, ForkJoinPool pool) {
+        var callGraph = getClassPool(classes).getCallGraph(ZwyzLegacyLogic.ENTRY_POINTS);
 
-        ZwyzLegacyLogic.calledMethods = calledMethods;
+        System.out.println("Reachable methods: " + callGraph.getReachableCount() + " of " + callGraph.size());
     }
 }
@@ -1,16 +1,138 @@
 package rs.lostcity.deob.bytecode.transform.zwyz;
 
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.TypePath;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.InsnNode;
 import org.objectweb.asm.tree.InvokeDynamicInsnNode;
 import org.objectweb.asm.tree.MethodNode;
 import rs.lostcity.asm.transform.Transformer;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class DeleteInvokeDynamicTransformer extends Transformer {
+    @Override
+    public boolean isMethodLocal() {
+        return true;
+    }
+
+    @Override
+    public boolean isStreamable() {
+        return true;
+    }
+
+    @Override
+    public ClassVisitor createVisitor(ClassVisitor next) {
+        return new ClassVisitor(Opcodes.ASM9, next) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return new MethodVisitor(Opcodes.ASM9, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+                    // annotations on a deleted call site go with it, rather than onto its replacement
+                    private boolean deleted;
+
+                    @Override
+                    public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+                        for (var opcode : replacement(descriptor)) {
+                            super.visitInsn(opcode);
+                        }
+
+                        deleted = true;
+                    }
+
+                    @Override
+                    public AnnotationVisitor visitInsnAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+                        return deleted ? null : super.visitInsnAnnotation(typeRef, typePath, descriptor, visible);
+                    }
+
+                    @Override
+                    public void visitLabel(Label label) {
+                        deleted = false;
+                        super.visitLabel(label);
+                    }
+
+                    @Override
+                    public void visitInsn(int opcode) {
+                        deleted = false;
+                        super.visitInsn(opcode);
+                    }
+
+                    @Override
+                    public void visitIntInsn(int opcode, int operand) {
+                        deleted = false;
+                        super.visitIntInsn(opcode, operand);
+                    }
+
+                    @Override
+                    public void visitVarInsn(int opcode, int varIndex) {
+                        deleted = false;
+                        super.visitVarInsn(opcode, varIndex);
+                    }
+
+                    @Override
+                    public void visitTypeInsn(int opcode, String type) {
+                        deleted = false;
+                        super.visitTypeInsn(opcode, type);
+                    }
+
+                    @Override
+                    public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+                        deleted = false;
+                        super.visitFieldInsn(opcode, owner, name, descriptor);
+                    }
+
+                    @Override
+                    public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+                        deleted = false;
+                        super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+                    }
+
+                    @Override
+                    public void visitJumpInsn(int opcode, Label label) {
+                        deleted = false;
+                        super.visitJumpInsn(opcode, label);
+                    }
+
+                    @Override
+                    public void visitLdcInsn(Object value) {
+                        deleted = false;
+                        super.visitLdcInsn(value);
+                    }
+
+                    @Override
+                    public void visitIincInsn(int varIndex, int increment) {
+                        deleted = false;
+                        super.visitIincInsn(varIndex, increment);
+                    }
+
+                    @Override
+                    public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+                        deleted = false;
+                        super.visitTableSwitchInsn(min, max, dflt, labels);
+                    }
+
+                    @Override
+                    public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+                        deleted = false;
+                        super.visitLookupSwitchInsn(dflt, keys, labels);
+                    }
+
+                    @Override
+                    public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+                        deleted = false;
+                        super.visitMultiANewArrayInsn(descriptor, numDimensions);
+                    }
+                };
+            }
+        };
+    }
+
     @Override
     public boolean transformMethod(List<ClassNode> classes, ClassNode clazz, MethodNode method) {
         if ((method.access & Opcodes.ACC_ABSTRACT) != 0) {
@@ -21,29 +143,8 @@ public class DeleteInvokeDynamicTransformer extends Transformer {
 
         while (instruction != null) {
             if (instruction instanceof InvokeDynamicInsnNode invokeDynamic) {
-                var methodType = Type.getMethodType(invokeDynamic.desc);
-                var argumentTypes = methodType.getArgumentTypes();
-
-                for (var i = argumentTypes.length - 1; i >= 0; i--) {
-                    var argumentType = argumentTypes[i];
-
-                    if (argumentType.getSize() == 2) {
-                        method.instructions.insertBefore(instruction, new InsnNode(Opcodes.POP2));
-                    } else {
-                        method.instructions.insertBefore(instruction, new InsnNode(Opcodes.POP));
-                    }
-                }
-
-                if (methodType.getReturnType() == Type.INT_TYPE) {
-                    method.instructions.insertBefore(instruction, new InsnNode(Opcodes.ICONST_0));
-                } else if (methodType.getReturnType() == Type.LONG_TYPE) {
-                    method.instructions.insertBefore(instruction, new InsnNode(Opcodes.LCONST_0));
-                } else if (methodType.getReturnType() == Type.FLOAT_TYPE) {
-                    method.instructions.insertBefore(instruction, new InsnNode(Opcodes.FCONST_0));
-                } else if (methodType.getReturnType() == Type.FLOAT_TYPE) {
-                    method.instructions.insertBefore(instruction, new InsnNode(Opcodes.FCONST_0));
-                } else if (methodType.getReturnType() != Type.VOID_TYPE) {
-                    method.instructions.insertBefore(instruction, new InsnNode(Opcodes.ACONST_NULL));
+                for (var opcode : replacement(invokeDynamic.desc)) {
+                    method.instructions.insertBefore(instruction, new InsnNode(opcode));
                 }
 
                 instruction = instruction.getNext();
@@ -56,4 +157,36 @@ public class DeleteInvokeDynamicTransformer extends Transformer {
 
         return false;
     }
+
+    // pops the arguments of the call site and pushes a default value in place of its result
+    private static List<Integer> replacement(String desc) {
+        var opcodes = new ArrayList<Integer>();
+
+        var methodType = Type.getMethodType(desc);
+        var argumentTypes = methodType.getArgumentTypes();
+
+        for (var i = argumentTypes.length - 1; i >= 0; i--) {
+            var argumentType = argumentTypes[i];
+
+            if (argumentType.getSize() == 2) {
+                opcodes.add(Opcodes.POP2);
+            } else {
+                opcodes.add(Opcodes.POP);
+            }
+        }
+
+        if (methodType.getReturnType() == Type.INT_TYPE) {
+            opcodes.add(Opcodes.ICONST_0);
+        } else if (methodType.getReturnType() == Type.LONG_TYPE) {
+            opcodes.add(Opcodes.LCONST_0);
+        } else if (methodType.getReturnType() == Type.FLOAT_TYPE) {
+            opcodes.add(Opcodes.FCONST_0);
+        } else if (methodType.getReturnType() == Type.FLOAT_TYPE) {
+            opcodes.add(Opcodes.FCONST_0);
+        } else if (methodType.getReturnType() != Type.VOID_TYPE) {
+            opcodes.add(Opcodes.ACONST_NULL);
+        }
+
+        return opcodes;
+    }
 }
@@ -12,6 +12,11 @@ import java.util.List;
 import java.util.Objects;
 
 public class ErrorHandlersTransformer extends Transformer {
+    @Override
+    public boolean preservesCalls() {
+        return true;
+    }
+
     @Override
     public boolean transformMethod(List<ClassNode> classes, ClassNode clazz, MethodNode method) {
         if (removeErrorHandler(clazz, method)) {
@@ -11,6 +11,16 @@ import java.util.List;
 import java.util.Objects;
 
 public class ExpressionSorterTransformer extends Transformer {
+    @Override
+    public boolean isMethodLocal() {
+        return true;
+    }
+
+    @Override
+    public boolean preservesCalls() {
+        return true;
+    }
+
     @Override
     public boolean transformMethod(List<ClassNode> classes, ClassNode clazz, MethodNode method) {
         var newInstructions = new MethodNode();
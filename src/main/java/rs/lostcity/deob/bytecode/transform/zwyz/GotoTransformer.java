@@ -8,6 +8,16 @@ import rs.lostcity.deob.bytecode.AsmUtil;
 import java.util.*;
 
 public class GotoTransformer extends Transformer {
+    @Override
+    public boolean isMethodLocal() {
+        return true;
+    }
+
+    @Override
+    public boolean preservesHierarchy() {
+        return true;
+    }
+
     @Override
     public boolean transformCode(List<ClassNode> classes, ClassNode clazz, MethodNode method) {
         if (method.tryCatchBlocks.isEmpty()) {
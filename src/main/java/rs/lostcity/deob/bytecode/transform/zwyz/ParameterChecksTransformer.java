@@ -11,11 +11,17 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 
 public class ParameterChecksTransformer extends Transformer {
     private boolean runelite = false;
     private boolean complex = false;
 
+    @Override
+    public boolean preservesHierarchy() {
+        return true;
+    }
+
     @Override
     public void provide(TomlParseResult profile) {
         super.provide(profile);
@@ -25,7 +31,7 @@ public class ParameterChecksTransformer extends Transformer {
     }
 
     @Override
-    public void transform(List<ClassNode> classes) {
+    public void transform(List<ClassNode> classes, ForkJoinPool pool) {
         // scan for constants
         var exclude = new HashSet<String>();
 
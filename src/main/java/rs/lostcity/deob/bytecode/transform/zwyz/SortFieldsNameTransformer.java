@@ -12,10 +12,16 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class SortFieldsNameTransformer extends Transformer {
     private boolean unreliableClassOrder = false;
 
+    @Override
+    public boolean preservesCalls() {
+        return true;
+    }
+
     @Override
     public void provide(TomlParseResult profile) {
         super.provide(profile);
@@ -24,7 +30,7 @@ public class SortFieldsNameTransformer extends Transformer {
     }
 
     @Override
-    public void transform(List<ClassNode> classes) {
+    public void transform(List<ClassNode> classes, ForkJoinPool pool) {
         List<String> names = new ArrayList<>();
 
         if (!unreliableClassOrder) {
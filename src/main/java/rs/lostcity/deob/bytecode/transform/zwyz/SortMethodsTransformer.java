@@ -10,6 +10,11 @@ import java.util.HashMap;
 import java.util.List;
 
 public class SortMethodsTransformer extends Transformer {
+    @Override
+    public boolean preservesCalls() {
+        return true;
+    }
+
     @Override
     public boolean transformClass(List<ClassNode> classes, ClassNode clazz) {
         // Sort methods based on line numbers
@@ -8,10 +8,16 @@ import rs.lostcity.asm.transform.Transformer;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class StaticFieldsTransformer extends Transformer {
     @Override
-    public void transform(List<ClassNode> classes) {
+    public boolean preservesCalls() {
+        return true;
+    }
+
+    @Override
+    public void transform(List<ClassNode> classes, ForkJoinPool pool) {
         // Remove unused fields
         var usedFields = new HashSet<String>();
 
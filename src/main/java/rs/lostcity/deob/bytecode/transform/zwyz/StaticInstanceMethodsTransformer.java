@@ -4,16 +4,22 @@ import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.JumpInsnNode;
-import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.MethodNode;
 import rs.lostcity.asm.transform.Transformer;
 import rs.lostcity.deob.bytecode.AsmUtil;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class StaticInstanceMethodsTransformer extends Transformer {
     @Override
-    public void transform(List<ClassNode> classes) {
+    public boolean preservesHierarchy() {
+        return true;
+    }
+
+    @Override
+    public void transform(List<ClassNode> classes, ForkJoinPool pool) {
+        var classPool = getClassPool(classes);
         var changedMethods = new HashSet<String>();
         var newDescs = new HashMap<String, String>();
         var realOwners = new HashMap<String, String>();
@@ -22,6 +28,7 @@ public class StaticInstanceMethodsTransformer extends Transformer {
         for (var clazz : classes) {
             for (var method : clazz.methods) {
                 if ((method.access & Opcodes.ACC_STATIC) != 0 && removeNullCheckCall(method)) {
+                    classPool.update(method);
                     method.access &= ~Opcodes.ACC_STATIC;
 
                     var methodType = Type.getMethodType(method.desc);
@@ -40,32 +47,23 @@ public class StaticInstanceMethodsTransformer extends Transformer {
         }
 
         // Move to new owners
-        var classesByName = new HashMap<String, ClassNode>();
-
-        for (var clazz : classes) {
-            classesByName.put(clazz.name, clazz);
-        }
-
         for (var clazz : classes) {
             for (var method : new ArrayList<>(clazz.methods)) {
                 var realOwner = realOwners.get(method.name);
 
                 if (realOwner != null && !Objects.equals(realOwner, clazz.name)) {
-                    clazz.methods.remove(method);
-                    classesByName.get(realOwner).methods.add(method);
+                    classPool.moveMethod(clazz, classPool.get(realOwner), method);
                 }
             }
         }
 
         // Update references
-        for (var clazz : classes) {
-            for (var method : clazz.methods) {
-                for (var insn : method.instructions) {
-                    if (insn instanceof MethodInsnNode methodInsn && methodInsn.getOpcode() == Opcodes.INVOKESTATIC && changedMethods.contains(methodInsn.name)) {
-                        methodInsn.setOpcode(Opcodes.INVOKEVIRTUAL);
-                        methodInsn.desc = newDescs.get(methodInsn.name);
-                        methodInsn.owner = realOwners.get(methodInsn.name);
-                    }
+        for (var name : changedMethods) {
+            for (var methodInsn : classPool.getMethodReferences(name)) {
+                if (methodInsn.getOpcode() == Opcodes.INVOKESTATIC) {
+                    methodInsn.setOpcode(Opcodes.INVOKEVIRTUAL);
+                    methodInsn.desc = newDescs.get(name);
+                    methodInsn.owner = realOwners.get(name);
                 }
             }
         }
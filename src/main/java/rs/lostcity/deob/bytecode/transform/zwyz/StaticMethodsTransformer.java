@@ -2,37 +2,53 @@ package rs.lostcity.deob.bytecode.transform.zwyz;
 
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
-import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.MethodNode;
+import rs.lostcity.asm.MethodFingerprint;
 import rs.lostcity.asm.transform.Transformer;
-import rs.lostcity.deob.bytecode.StringConvertingMethodVisitor;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class StaticMethodsTransformer extends Transformer {
     @Override
-    public void transform(List<ClassNode> classes) {
-        classes.add(ZwyzLegacyLogic.staticsClass);
+    public boolean preservesHierarchy() {
+        return true;
+    }
+
+    @Override
+    public void transform(List<ClassNode> classes, ForkJoinPool pool) {
+        var classPool = getClassPool(classes);
+        classPool.addClass(ZwyzLegacyLogic.staticsClass);
+
+        // Find the methods still reachable from outside the obfuscated code
+        var callGraph = classPool.getCallGraph(ZwyzLegacyLogic.ENTRY_POINTS);
+        var calledMethods = new HashSet<String>();
 
-        // Compute method hashes
+        for (var clazz : classes) {
+            for (var method : clazz.methods) {
+                if (callGraph.isReachable(method)) {
+                    calledMethods.add(method.name);
+                }
+            }
+        }
+
+        // Group structurally identical methods
         var methodOwners = new HashMap<String, String>();
-        var methodsByHash = new HashMap<Integer, List<String>>();
+        var methodsByHash = new HashMap<Long, List<List<MethodNode>>>();
 
         for (var clazz : classes) {
             for (var method : clazz.methods) {
-                if (method.name.startsWith("method") && (!ZwyzLegacyLogic.calledMethods.contains(method.name) || ZwyzLegacyLogic.obfuscatedMethods.contains(method.name)) && (method.access & Opcodes.ACC_STATIC) != 0 && (method.access & Opcodes.ACC_ABSTRACT) == 0) {
-                    var hash = computeHash(method);
+                if (method.name.startsWith("method") && (!calledMethods.contains(method.name) || ZwyzLegacyLogic.obfuscatedMethods.contains(method.name)) && (method.access & Opcodes.ACC_STATIC) != 0 && (method.access & Opcodes.ACC_ABSTRACT) == 0) {
                     methodOwners.put(method.name, clazz.name);
-                    methodsByHash.computeIfAbsent(hash, k -> new ArrayList<>()).add(method.name);
+
+                    addToGroup(methodsByHash.computeIfAbsent(MethodFingerprint.hash(method), k -> new ArrayList<>()), method);
                 }
             }
         }
 
         var realOwners = new HashMap<String, String>();
 
-        for (var entry : methodsByHash.entrySet()) {
-            var group = entry.getValue();
-
+        for (var group : methodsByHash.values().stream().flatMap(List::stream).toList()) {
             if (group.size() < 2) {
                 continue;
             }
@@ -41,10 +57,10 @@ public class StaticMethodsTransformer extends Transformer {
             var owners = new HashSet<String>();
 
             for (var method : group) {
-                if (ZwyzLegacyLogic.calledMethods.contains(method)) {
-                    real.add(method);
+                if (calledMethods.contains(method.name)) {
+                    real.add(method.name);
                 } else {
-                    owners.add(methodOwners.get(method));
+                    owners.add(methodOwners.get(method.name));
                 }
             }
 
@@ -72,57 +88,41 @@ public class StaticMethodsTransformer extends Transformer {
 
         // Delete uncalled methods, we don't need them anymore
         for (var clazz : classes) {
-            clazz.methods.removeIf(m -> !ZwyzLegacyLogic.calledMethods.contains(m.name));
+            for (var method : new ArrayList<>(clazz.methods)) {
+                if (!calledMethods.contains(method.name)) {
+                    classPool.removeMethod(clazz, method);
+                }
+            }
         }
 
         // Move static methods to the real owners
-        var classesByName = new HashMap<String, ClassNode>();
-
-        for (var clazz : classes) {
-            classesByName.put(clazz.name, clazz);
-        }
-
         for (var clazz : classes) {
             for (var method : new ArrayList<>(clazz.methods)) {
                 var realOwner = realOwners.get(method.name);
 
                 if (realOwner != null && !Objects.equals(realOwner, clazz.name)) {
-                    clazz.methods.remove(method);
-                    classesByName.get(realOwner).methods.add(method);
+                    classPool.moveMethod(clazz, classPool.get(realOwner), method);
                     method.access = (method.access & ~(Opcodes.ACC_PRIVATE | Opcodes.ACC_PROTECTED)) | Opcodes.ACC_PUBLIC;
                 }
-
-                for (var instruction : method.instructions) {
-                    if (instruction instanceof MethodInsnNode mi && realOwners.containsKey(mi.name)) {
-                        mi.owner = realOwners.get(mi.name);
-                    }
-                }
             }
         }
-    }
 
-    private static int computeHash(MethodNode method) {
-        var visitor = new StringConvertingMethodVisitor() {
-            @Override
-            public void visitIntInsn(int opcode, int operand) {
-                if (opcode == Opcodes.BIPUSH || opcode == Opcodes.SIPUSH) {
-                    result.add("(constant int)");
-                } else {
-                    super.visitInsn(opcode);
-                }
+        for (var entry : realOwners.entrySet()) {
+            for (var mi : classPool.getMethodReferences(entry.getKey())) {
+                mi.owner = entry.getValue();
             }
+        }
+    }
 
-            @Override
-            public void visitLdcInsn(Object value) {
-                if (value instanceof Integer) {
-                    result.add("(constant int)");
-                } else {
-                    super.visitLdcInsn(value);
-                }
+    // methods whose hashes collide are split into groups that really are equal
+    private static void addToGroup(List<List<MethodNode>> groups, MethodNode method) {
+        for (var group : groups) {
+            if (MethodFingerprint.equals(group.getFirst(), method)) {
+                group.add(method);
+                return;
             }
-        };
+        }
 
-        method.instructions.accept(visitor);
-        return visitor.getResult().hashCode() * 31 + method.desc.hashCode();
+        groups.add(new ArrayList<>(List.of(method)));
     }
 }
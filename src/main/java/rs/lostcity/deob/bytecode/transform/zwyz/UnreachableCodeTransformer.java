@@ -8,6 +8,16 @@ import rs.lostcity.deob.bytecode.AsmUtil;
 import java.util.List;
 
 public class UnreachableCodeTransformer extends Transformer {
+    @Override
+    public boolean isMethodLocal() {
+        return true;
+    }
+
+    @Override
+    public boolean preservesHierarchy() {
+        return true;
+    }
+
     @Override
     public boolean transformCode(List<ClassNode> classes, ClassNode clazz, MethodNode method) {
         AsmUtil.removeUnreachableCode(method);
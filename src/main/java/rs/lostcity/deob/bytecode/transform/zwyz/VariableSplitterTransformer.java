@@ -2,17 +2,24 @@ package rs.lostcity.deob.bytecode.transform.zwyz;
 
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.*;
+import rs.lostcity.asm.UnionFind;
 import rs.lostcity.asm.transform.Transformer;
 import rs.lostcity.deob.bytecode.AsmUtil;
+import rs.lostcity.deob.bytecode.ControlFlowGraph;
+import rs.lostcity.deob.bytecode.ReachingDefinitions;
 
 import java.util.*;
 
 public class VariableSplitterTransformer extends Transformer {
-    private Map<AbstractInsnNode, InstructionBlock> blocks;
-    private Map<AbstractInsnNode, Set<AbstractInsnNode>> varInstructionGroups;
+    @Override
+    public boolean isMethodLocal() {
+        return true;
+    }
 
-    private InstructionBlock startBlock;
-    private int firstLocalIndex;
+    @Override
+    public boolean preservesCalls() {
+        return true;
+    }
 
     @Override
     public boolean transformMethod(List<ClassNode> classes, ClassNode clazz, MethodNode method) {
@@ -20,72 +27,43 @@ public class VariableSplitterTransformer extends Transformer {
             return false;
         }
 
-        blocks = new HashMap<>();
-        varInstructionGroups = new LinkedHashMap<>();
-        Set<AbstractInsnNode> parameterLoads = new HashSet<>();
-
-        firstLocalIndex = AsmUtil.getFirstLocalIndex(method);
-        startBlock = new InstructionBlock(null);
-        startBlock.addNext(block(method.instructions.getFirst()));
-
-        // Compute control flow edges between instructions
-        for (var instruction : method.instructions) {
-            var block = block(instruction);
+        var graph = ControlFlowGraph.of(method);
+        var definitions = new ReachingDefinitions(graph, AsmUtil.getFirstLocalIndex(method));
+        var instructions = graph.getInstructions();
 
-            if (!AsmUtil.isTerminal(instruction)) {
-                block.addNext(block(instruction.getNext()));
-            }
-
-            for (var target : AsmUtil.getJumpTargets(instruction)) {
-                block.addNext(block(target));
-            }
-        }
+        // Link var instructions that can load/store each others' values
+        var groups = new UnionFind(instructions.length);
+        var parameterLoads = new BitSet(instructions.length);
 
-        for (var tryCatch : method.tryCatchBlocks) {
-            var instruction = (AbstractInsnNode) tryCatch.start;
+        definitions.forEachUse((use, definition) -> {
+            var store = definitions.getDefinitionInstruction(definition);
 
-            while (instruction != tryCatch.end) {
-                block(instruction).addNext(block(tryCatch.handler));
-                instruction = instruction.getNext();
+            if (store == -1) {
+                parameterLoads.set(use);
+            } else {
+                groups.union(use, store);
             }
-        }
-
-        // Create a group for each instruction initially + cache load and store vars
-        for (var instruction : method.instructions) {
-            var block = block(instruction);
-            block.load = AsmUtil.getLoadedVar(instruction);
-            block.store = AsmUtil.getStoredVar(instruction);
+        });
 
-            if (block.load != -1 || block.store != -1) {
-                varInstructionGroups.put(instruction, Set.of(instruction));
-            }
-        }
+        // Collect the linked groups, ordered by their first instruction
+        var varInstructionGroups = new LinkedHashMap<Integer, List<AbstractInsnNode>>();
 
-        // Link var instructions that can load/store each others' values
-        for (var instruction : method.instructions) {
-            var block = block(instruction);
-
-            if (block.load != -1) {
-                for (var lastStore : findLastStores(block, block.load)) {
-                    if (lastStore == startBlock) {
-                        parameterLoads.add(block.instruction);
-                    } else {
-                        linkVarInstructions(block.instruction, lastStore.instruction);
-                    }
-                }
+        for (var i = 0; i < instructions.length; i++) {
+            if (AsmUtil.getLoadedVar(instructions[i]) != -1 || AsmUtil.getStoredVar(instructions[i]) != -1) {
+                varInstructionGroups.computeIfAbsent(groups.find(i), k -> new ArrayList<>()).add(instructions[i]);
             }
         }
 
         // Assign a unique var index to each linked group
         var varIndex = AsmUtil.getFirstLocalIndex(method);
 
-        for (var group : new LinkedHashSet<>(varInstructionGroups.values())) {
+        for (var group : varInstructionGroups.entrySet()) {
             var isParameter = false;
             var isSize2 = false;
             var var = -1;
 
-            for (var instruction : group) {
-                if (parameterLoads.contains(instruction)) {
+            for (var instruction : group.getValue()) {
+                if (parameterLoads.get(graph.indexOf(instruction))) {
                     isParameter = true;
                 }
 
@@ -111,7 +89,7 @@ public class VariableSplitterTransformer extends Transformer {
             }
 
             if (!isParameter) {
-                for (var instruction : group) {
+                for (var instruction : group.getValue()) {
                     if (instruction instanceof VarInsnNode varInsn) {
                         varInsn.var = varIndex;
                     }
@@ -126,60 +104,6 @@ public class VariableSplitterTransformer extends Transformer {
         }
 
         method.maxLocals = varIndex;
-
         return false;
     }
-
-    private Set<InstructionBlock> findLastStores(InstructionBlock block, int var) {
-        var stores = new LinkedHashSet<InstructionBlock>();
-        findLastStores(block, var, new HashSet<>(), stores);
-        return stores;
-    }
-
-    private void findLastStores(InstructionBlock block, int var, Set<InstructionBlock> visited, Set<InstructionBlock> stores) {
-        if (!visited.add(block)) {
-            return;
-        }
-
-        for (var prev : block.prev) {
-            if (prev.store == var || prev == startBlock && var < firstLocalIndex) {
-                stores.add(prev); // add the store and stop here, previous stores are shadowed
-            } else {
-                findLastStores(prev, var, visited, stores);
-            }
-        }
-    }
-
-    private InstructionBlock block(AbstractInsnNode instruction) {
-        return blocks.computeIfAbsent(instruction, InstructionBlock::new);
-    }
-
-    private void linkVarInstructions(AbstractInsnNode a, AbstractInsnNode b) {
-        var setA = varInstructionGroups.get(a);
-        var setB = varInstructionGroups.get(b);
-        var setAB = new LinkedHashSet<AbstractInsnNode>(setA.size() + setB.size());
-        setAB.addAll(setA);
-        setAB.addAll(setB);
-
-        for (var instruction : setAB) {
-            varInstructionGroups.put(instruction, setAB);
-        }
-    }
-
-    private static class InstructionBlock {
-        public final AbstractInsnNode instruction;
-        public List<InstructionBlock> prev = new ArrayList<>();
-        public List<InstructionBlock> next = new ArrayList<>();
-        public int load = -1;
-        public int store = -1;
-
-        public InstructionBlock(AbstractInsnNode instruction) {
-            this.instruction = instruction;
-        }
-
-        public void addNext(InstructionBlock block) {
-            next.add(block);
-            block.prev.add(this);
-        }
-    }
 }
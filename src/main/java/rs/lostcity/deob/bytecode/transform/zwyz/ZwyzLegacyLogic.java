@@ -2,8 +2,10 @@ package rs.lostcity.deob.bytecode.transform.zwyz;
 
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 public class ZwyzLegacyLogic {
     // todo: move list to profile
@@ -13,7 +15,9 @@ public class ZwyzLegacyLogic {
             "org/json/"
     );
 
-    public static Set<String> calledMethods = new LinkedHashSet<>();
+    // after renaming, anything not called "method" is unobfuscated and may be called from outside
+    public static final Predicate<MethodNode> ENTRY_POINTS = method -> !method.name.startsWith("method");
+
     public static Set<String> obfuscatedMethods = new HashSet<>();
     public static Set<String> unobfuscatedMethods = new HashSet<>();
 